@@ -34,6 +34,8 @@ import lombok.SneakyThrows;
 
 import java.io.File;
 import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Objects;
 import java.util.Set;
 
@@ -42,6 +44,12 @@ public final class GoogleCloudStorageConfig {
     // Directory to store user credentials.
     public static final FileDataStoreFactory FILE_DATA_STORE_FACTORY = initFileDataStoreFactory();
 
+    // Directory to store journals of resumable uploads.
+    public static final Path UPLOAD_JOURNAL_DIRECTORY = Paths.get("/data/google-cloud-storage", "upload-journals");
+
+    // Directory to cache downloaded blobs.
+    public static final Path DOWNLOAD_CACHE_DIRECTORY = Paths.get("/data/google-cloud-storage", "download-cache");
+
     // User credential of Google Cloud Storage.
     private static final String SERVICE_CREDENTIAL_PATHNAME = "json/credentials.json";
 
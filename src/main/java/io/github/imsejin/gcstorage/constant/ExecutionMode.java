@@ -0,0 +1,46 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Im Sejin
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.imsejin.gcstorage.constant;
+
+/**
+ * Modes of threads that run the operations of {@link io.github.imsejin.gcstorage.core.AsyncHelper},
+ * and the parts that an operation runs at the same time.
+ *
+ * @see io.github.imsejin.gcstorage.core.HelperOptions#getExecutionMode()
+ */
+public enum ExecutionMode {
+
+    /**
+     * Runs the operations on a fixed number of platform threads.
+     */
+    PLATFORM_THREADS,
+
+    /**
+     * Runs each operation on its own virtual thread, which is available since Java 21.
+     * On older Java, falls back to {@link #PLATFORM_THREADS}.
+     */
+    VIRTUAL_THREADS
+
+}
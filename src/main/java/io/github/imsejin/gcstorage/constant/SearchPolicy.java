@@ -32,6 +32,12 @@ import java.util.function.Predicate;
 
 /**
  * Policies for searching the specific blobs.
+ *
+ * <p> The conditions are evaluated only on what a listing response already contains,
+ * without any request. A listed blob always existed when it was listed,
+ * and a directory is a prefix the listing has rolled up.
+ *
+ * @see io.github.imsejin.gcstorage.core.HelperOptions#isRevalidateListedBlobs()
  */
 @Getter
 @RequiredArgsConstructor
@@ -40,7 +46,7 @@ public enum SearchPolicy {
     /**
      * Will find only files.
      */
-    FILES(blob -> !blob.isDirectory() && blob.exists()),
+    FILES(blob -> !blob.isDirectory()),
 
     /**
      * Will find only directories.
@@ -50,7 +56,7 @@ public enum SearchPolicy {
     /**
      * Will find files or directories.
      */
-    ALL(blob -> blob.isDirectory() || blob.exists());
+    ALL(blob -> true);
 
     private final Predicate<Blob> condition;
 
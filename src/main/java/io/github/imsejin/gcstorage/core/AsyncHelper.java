@@ -0,0 +1,243 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Im Sejin
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.imsejin.gcstorage.core;
+
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import io.github.imsejin.gcstorage.constant.SearchPolicy;
+import lombok.Getter;
+import lombok.NonNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Asynchronous counterpart of {@link Helper}, whose operations return {@link CompletableFuture}.
+ *
+ * <p> Operations run on the threads of this, not of the caller. The number of operations
+ * running at the same time is limited for each kind of them by {@link HelperOptions},
+ * on platform threads and virtual threads alike,
+ * so that a burst of transfers doesn't make lookups wait for all the threads.
+ * A future completes exceptionally with the exception {@link Helper} would throw.
+ * After {@link #close()}, an operation returns a future completed exceptionally
+ * with {@link java.util.concurrent.RejectedExecutionException}, instead of throwing it.
+ *
+ * <pre>
+ * try (AsyncHelper asyncHelper = HelperFactory.createAsync("steady-copilot-206205.appspot.com")) {
+ *     CompletableFuture&lt;Blob&gt; blob = asyncHelper.getBlobAsync("lifecycle-images/20210101/emart.zip");
+ *     CompletableFuture&lt;Boolean&gt; deleted = asyncHelper.deleteAsync("lifecycle-images/20201231/emart.zip");
+ *
+ *     CompletableFuture.allOf(blob, deleted).join();
+ * }
+ * </pre>
+ */
+public final class AsyncHelper implements AutoCloseable {
+
+    /**
+     * Helper that runs the operations.
+     */
+    @Getter
+    private final Helper helper;
+
+    private final ExecutorService executor;
+
+    /**
+     * Executor for getting metadata and listing.
+     */
+    private final LimitedExecutor lookupExecutor;
+
+    /**
+     * Executor for upload and download.
+     */
+    private final LimitedExecutor transferExecutor;
+
+    /**
+     * Executor for move and delete.
+     */
+    private final LimitedExecutor modificationExecutor;
+
+    AsyncHelper(Helper helper, ExecutorService executor,
+                int lookupConcurrency, int transferConcurrency, int modificationConcurrency) {
+        this.helper = helper;
+        this.executor = executor;
+        this.lookupExecutor = new LimitedExecutor(executor, lookupConcurrency);
+        this.transferExecutor = new LimitedExecutor(executor, transferConcurrency);
+        this.modificationExecutor = new LimitedExecutor(executor, modificationConcurrency);
+    }
+
+    /////////////////////////////////// Getters ///////////////////////////////////
+
+    /**
+     * @see Helper#getBlob(String)
+     */
+    public CompletableFuture<Blob> getBlobAsync(@NonNull String blobName) {
+        return lookupExecutor.supply(() -> helper.getBlob(blobName));
+    }
+
+    /**
+     * @see Helper#getBlobs(Collection)
+     */
+    public CompletableFuture<BlobBatchResult> getBlobsAsync(@NonNull Collection<String> blobNames) {
+        return lookupExecutor.supply(() -> helper.getBlobs(blobNames));
+    }
+
+    /**
+     * @see Helper#getBlobs(String, SearchPolicy)
+     */
+    public CompletableFuture<List<Blob>> getBlobsAsync(String blobName, @NonNull SearchPolicy policy) {
+        return lookupExecutor.supply(() -> helper.getBlobs(blobName, policy));
+    }
+
+    /**
+     * @see Helper#getBlobs(String, SearchPolicy, ListingOptions)
+     */
+    public CompletableFuture<List<Blob>> getBlobsAsync(String blobName, @NonNull SearchPolicy policy,
+                                                      @NonNull ListingOptions listingOptions) {
+        return lookupExecutor.supply(() -> helper.getBlobs(blobName, policy, listingOptions));
+    }
+
+    /**
+     * @see Helper#getBlobNames(String, SearchPolicy)
+     */
+    public CompletableFuture<List<String>> getBlobNamesAsync(String blobName, @NonNull SearchPolicy policy) {
+        return lookupExecutor.supply(() -> helper.getBlobNames(blobName, policy));
+    }
+
+    /**
+     * @see Helper#getLastBlob(String, boolean)
+     */
+    public CompletableFuture<Blob> getLastBlobAsync(String blobName, boolean priorToFile) {
+        return lookupExecutor.supply(() -> helper.getLastBlob(blobName, priorToFile));
+    }
+
+    /////////////////////////////////// Downloaders ///////////////////////////////////
+
+    /**
+     * @see Helper#download(String, Path, String)
+     */
+    public CompletableFuture<File> downloadAsync(String blobName, Path dest, @Nullable String newFilename) {
+        return transferExecutor.supply(() -> helper.download(blobName, dest, newFilename));
+    }
+
+    /**
+     * @see Helper#download(Blob, Path, String)
+     */
+    public CompletableFuture<File> downloadAsync(Blob blob, Path dest, @Nullable String newFilename) {
+        return transferExecutor.supply(() -> helper.download(blob, dest, newFilename));
+    }
+
+    /**
+     * @see Helper#readAllBytes(String)
+     */
+    public CompletableFuture<byte[]> readAllBytesAsync(String blobName) {
+        return transferExecutor.supply(() -> helper.readAllBytes(blobName));
+    }
+
+    /////////////////////////////////// Uploaders ///////////////////////////////////
+
+    /**
+     * @see Helper#upload(BlobId, File, String)
+     */
+    public CompletableFuture<Checksum> uploadAsync(BlobId blobId, File file, @Nullable String mimeType) {
+        return transferExecutor.supply(() -> helper.upload(blobId, file, mimeType));
+    }
+
+    /**
+     * @see Helper#upload(BlobId, byte[], String)
+     */
+    public CompletableFuture<Checksum> uploadAsync(BlobId blobId, byte[] content, @Nullable String mimeType) {
+        return transferExecutor.supply(() -> helper.upload(blobId, content, mimeType));
+    }
+
+    /////////////////////////////////// Modifiers ///////////////////////////////////
+
+    /**
+     * @see Helper#move(String, String)
+     */
+    public CompletableFuture<Blob> moveAsync(@NonNull String blobName, String newBlobName) {
+        return modificationExecutor.supply(() -> helper.move(blobName, newBlobName));
+    }
+
+    /**
+     * @see Helper#movePrefix(String, String)
+     */
+    public CompletableFuture<BlobMoveResult> movePrefixAsync(@NonNull String prefix, @NonNull String newPrefix) {
+        return modificationExecutor.supply(() -> helper.movePrefix(prefix, newPrefix));
+    }
+
+    /**
+     * @see Helper#delete(String)
+     */
+    public CompletableFuture<Boolean> deleteAsync(@NonNull String blobName) {
+        return modificationExecutor.supply(() -> helper.delete(blobName));
+    }
+
+    /**
+     * @see Helper#deleteAll(Collection)
+     */
+    public CompletableFuture<BlobDeletionResult> deleteAllAsync(@NonNull Collection<String> blobNames) {
+        return modificationExecutor.supply(() -> helper.deleteAll(blobNames));
+    }
+
+    /**
+     * @see Helper#deletePrefix(String)
+     */
+    public CompletableFuture<BlobDeletionResult> deletePrefixAsync(@NonNull String prefix) {
+        return modificationExecutor.supply(() -> helper.deletePrefix(prefix));
+    }
+
+    /**
+     * Stops accepting operations, and waits until the operations already accepted are completed,
+     * including the ones waiting for their limits, and the threads are released.
+     *
+     * <p> This must not be called on the threads of this, such as in an operation or
+     * a callback of its future, which would wait for itself.
+     * If interrupted, this returns without waiting any more, but the threads
+     * are still released after the operations are completed.
+     */
+    @Override
+    public void close() {
+        CompletableFuture<Void> termination = CompletableFuture.allOf(lookupExecutor.shutdown(),
+                transferExecutor.shutdown(), modificationExecutor.shutdown()).thenRun(executor::shutdown);
+
+        try {
+            termination.get();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            // Every operation completes its own future, so shutdown of the executor is the only failure.
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+}
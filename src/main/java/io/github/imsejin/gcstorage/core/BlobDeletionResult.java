@@ -0,0 +1,79 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Im Sejin
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.imsejin.gcstorage.core;
+
+import com.google.cloud.storage.StorageException;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of deleting blobs at once.
+ *
+ * <pre>
+ * BlobDeletionResult result = deleteAll(Arrays.asList("goods/1.jpeg", "goods/2.jpeg", "goods/3.jpeg"));
+ *
+ * result.getDeletedNames() // ["goods/1.jpeg", "goods/3.jpeg"]
+ * result.getMissingNames() // ["goods/2.jpeg"]
+ * result.getErrors() // {}
+ * </pre>
+ *
+ * <p> Each name is in only one of them.
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public final class BlobDeletionResult {
+
+    /**
+     * Names of the blobs deleted, in the order of request.
+     */
+    private final List<String> deletedNames;
+
+    /**
+     * Names of the blobs that didn't exist, in the order of request.
+     */
+    private final List<String> missingNames;
+
+    /**
+     * Errors of the names failed to be deleted, such as permission.
+     */
+    private final Map<String, StorageException> errors;
+
+    /**
+     * Returns whether none of the blobs failed to be deleted.
+     * A blob that didn't exist is not regarded as failure.
+     *
+     * @return whether no error occurred
+     */
+    public boolean isSuccessful() {
+        return errors.isEmpty();
+    }
+
+}
@@ -0,0 +1,198 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Im Sejin
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.imsejin.gcstorage.core;
+
+import com.google.api.gax.paging.Page;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.Storage.BlobListOption;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * Iterator of listed blobs, which fetches the next page only when
+ * the blobs of the current page are all consumed.
+ *
+ * <p> The first page is fetched on the first call of {@link #hasNext()},
+ * and no more page is fetched once the consumer stops iterating.
+ *
+ * <p> With prefetch depth, as soon as a page arrives, the following pages
+ * up to the depth are requested in background while the page is consumed.
+ * They are cancelled if not requested yet when the iterator is closed.
+ */
+final class BlobIterator implements Iterator<Blob>, AutoCloseable {
+
+    private static final Executor PREFETCH_EXECUTOR = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+            .setNameFormat("gcstorage-listing-prefetch-%d")
+            .setDaemon(true)
+            .build());
+
+    private final Storage storage;
+
+    private final String bucketName;
+
+    private final BlobListOption[] options;
+
+    private final int prefetchDepth;
+
+    @Nullable
+    private final String endOffset;
+
+    /**
+     * Pages following the current page in order, which are being fetched or already fetched.
+     */
+    private final Deque<CompletableFuture<Page<Blob>>> prefetchedPages = new ArrayDeque<>();
+
+    @Nullable
+    private Page<Blob> page;
+
+    /**
+     * Token that the current page has been fetched with, which is null for the first page.
+     */
+    @Nullable
+    private String pageToken;
+
+    private Iterator<Blob> blobs = Collections.emptyIterator();
+
+    @Nullable
+    private Blob next;
+
+    BlobIterator(Storage storage, String bucketName, int prefetchDepth, @Nullable String endOffset,
+                 BlobListOption... options) {
+        this.storage = storage;
+        this.bucketName = bucketName;
+        this.prefetchDepth = prefetchDepth;
+        this.endOffset = endOffset;
+        this.options = options;
+    }
+
+    @Override
+    public boolean hasNext() {
+        while (next == null) {
+            if (blobs.hasNext()) {
+                // Skips null, which the page may contain.
+                next = blobs.next();
+                continue;
+            }
+
+            if (page == null) {
+                page = storage.list(bucketName, options);
+            } else {
+                // A page covers a range of names, so the pages after it are all past the end offset.
+                if (isPastEndOffset(page)) {
+                    close();
+                    return false;
+                }
+
+                Page<Blob> nextPage = fetchNextPage();
+                if (nextPage == null) return false;
+
+                pageToken = page.getNextPageToken();
+                page = nextPage;
+            }
+
+            blobs = page.getValues().iterator();
+            prefetch();
+        }
+
+        return true;
+    }
+
+    @Override
+    public Blob next() {
+        if (!hasNext()) throw new NoSuchElementException();
+
+        Blob blob = next;
+        next = null;
+
+        return blob;
+    }
+
+    /**
+     * Returns the token of the page which the last blob returned by {@link #next()} belongs to.
+     * Listing with the token continues from that page, not from the first.
+     *
+     * @return token of the page, or null if it is the first page
+     */
+    @Nullable
+    String getPageToken() {
+        return pageToken;
+    }
+
+    @Override
+    public void close() {
+        prefetchedPages.forEach(it -> it.cancel(false));
+        prefetchedPages.clear();
+    }
+
+    private boolean isPastEndOffset(Page<Blob> page) {
+        if (endOffset == null) return false;
+
+        for (Blob blob : page.getValues()) {
+            if (blob != null && blob.getName().compareTo(endOffset) >= 0) return true;
+        }
+
+        return false;
+    }
+
+    @Nullable
+    private Page<Blob> fetchNextPage() {
+        if (prefetchDepth == 0) return page.hasNextPage() ? page.getNextPage() : null;
+
+        CompletableFuture<Page<Blob>> nextPage = prefetchedPages.poll();
+        if (nextPage == null) return null;
+
+        try {
+            return nextPage.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw e;
+        }
+    }
+
+    private void prefetch() {
+        CompletableFuture<Page<Blob>> lastPage = prefetchedPages.isEmpty()
+                ? CompletableFuture.completedFuture(page)
+                : prefetchedPages.getLast();
+
+        while (prefetchedPages.size() < prefetchDepth) {
+            lastPage = lastPage.thenApplyAsync(it -> it != null && it.hasNextPage() ? it.getNextPage() : null,
+                    PREFETCH_EXECUTOR);
+            prefetchedPages.add(lastPage);
+        }
+    }
+
+}
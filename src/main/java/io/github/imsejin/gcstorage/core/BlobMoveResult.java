@@ -0,0 +1,77 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Im Sejin
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.imsejin.gcstorage.core;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Result of moving blobs at once.
+ *
+ * <pre>
+ * BlobMoveResult result = movePrefix("goods/1/", "goods/2/");
+ *
+ * result.getMovedNames() // {"goods/1/a.jpeg": "goods/2/a.jpeg"}
+ * result.getMissingNames() // ["goods/1/b.jpeg"]
+ * result.getErrors() // {"goods/1/c.jpeg": StorageException(...)}
+ * </pre>
+ */
+@Getter
+@ToString
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public final class BlobMoveResult {
+
+    /**
+     * New names of the blobs moved by their old names, in the order of completion.
+     */
+    private final Map<String, String> movedNames;
+
+    /**
+     * Names of the blobs that were deleted by others after being listed.
+     */
+    private final List<String> missingNames;
+
+    /**
+     * Errors of the names failed to be moved. A blob failed to be copied is left as it was,
+     * and a blob failed to be deleted after copy remains at both of the names.
+     */
+    private final Map<String, RuntimeException> errors;
+
+    /**
+     * Returns whether none of the blobs failed to be moved.
+     * A blob that didn't exist is not regarded as failure.
+     *
+     * @return whether no error occurred
+     */
+    public boolean isSuccessful() {
+        return errors.isEmpty();
+    }
+
+}
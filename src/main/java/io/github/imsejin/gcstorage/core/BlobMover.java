@@ -0,0 +1,189 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Im Sejin
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.imsejin.gcstorage.core;
+
+import com.google.cloud.RestorableState;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.CopyWriter;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.Storage.BlobField;
+import com.google.cloud.storage.Storage.BlobGetOption;
+import com.google.cloud.storage.Storage.BlobSourceOption;
+import com.google.cloud.storage.Storage.CopyRequest;
+import com.google.cloud.storage.StorageException;
+import io.github.imsejin.gcstorage.exception.ChecksumMismatchException;
+import io.github.imsejin.gcstorage.exception.NoSuchBlobException;
+
+/**
+ * Mover that copies a blob on server a chunk at a time, and deletes the source
+ * only after the copy is confirmed.
+ *
+ * <p> A rewrite of large blob across locations or storage classes takes many requests.
+ * Each of them is sent as a chunk, so that the progress is reported and a failed chunk
+ * is retried from the rewrite token of the last one, not from the beginning.
+ *
+ * <p> Every request is bound to the generation of the source, so a source overwritten
+ * during the move is neither copied partially nor deleted.
+ */
+final class BlobMover {
+
+    /**
+     * HTTP status code of failed precondition.
+     */
+    private static final int PRECONDITION_FAILED = 412;
+
+    private final Storage storage;
+
+    private final int megabytesCopiedPerChunk;
+
+    private final int maxResumes;
+
+    BlobMover(Storage storage, int megabytesCopiedPerChunk, int maxResumes) {
+        this.storage = storage;
+        this.megabytesCopiedPerChunk = megabytesCopiedPerChunk;
+        this.maxResumes = maxResumes;
+    }
+
+    /**
+     * Moves the blob to the target.
+     *
+     * @param blob     source blob
+     * @param target   id of the target
+     * @param listener listener of the progress
+     * @return moved blob
+     * @throws NoSuchBlobException       if the source doesn't exist
+     * @throws ChecksumMismatchException if the copied blob doesn't match the source
+     */
+    Blob move(Blob blob, BlobId target, CopyProgressListener listener) {
+        Blob source = resolve(blob);
+        Blob copied = copy(source, target, listener);
+
+        try {
+            storage.delete(toSourceId(source), BlobSourceOption.generationMatch(source.getGeneration()));
+        } catch (StorageException e) {
+            // A source overwritten during the move is the newer one, which must be kept.
+            if (e.getCode() != PRECONDITION_FAILED) throw e;
+        }
+
+        return copied;
+    }
+
+    /**
+     * Returns the blob with generation and checksum, which are needed to move it.
+     *
+     * @param blob blob that can be listed with only some fields
+     * @return blob with generation and checksum
+     * @throws NoSuchBlobException if the blob doesn't exist
+     */
+    Blob resolve(Blob blob) {
+        if (blob.getGeneration() != null && blob.getCrc32c() != null) return blob;
+
+        Blob source = storage.get(blob.getBlobId(), BlobGetOption.fields(
+                BlobField.CRC32C, BlobField.MD5HASH, BlobField.GENERATION, BlobField.SIZE));
+        if (source == null) throw new NoSuchBlobException("Blob(%s) doesn't exist", blob.getBlobId());
+
+        return source;
+    }
+
+    /**
+     * Copies the generation of the source to the target, and confirms the copy.
+     * The source is not deleted.
+     *
+     * @param source   source blob with generation and checksum
+     * @param target   id of the target
+     * @param listener listener of the progress
+     * @return copied blob
+     * @throws ChecksumMismatchException if the copied blob doesn't match the source
+     */
+    Blob copy(Blob source, BlobId target, CopyProgressListener listener) {
+        Blob copied = rewrite(toSourceId(source), target, listener);
+        confirm(source, copied);
+
+        return copied;
+    }
+
+    /**
+     * Returns ID of the source bound to its generation.
+     *
+     * @param source source blob with generation
+     * @return ID with generation
+     */
+    static BlobId toSourceId(Blob source) {
+        return BlobId.of(source.getBucket(), source.getName(), source.getGeneration());
+    }
+
+    private Blob rewrite(BlobId source, BlobId target, CopyProgressListener listener) {
+        CopyRequest.Builder builder = CopyRequest.newBuilder()
+                .setSource(source)
+                .setSourceOptions(BlobSourceOption.generationMatch(source.getGeneration()))
+                .setTarget(target);
+        if (megabytesCopiedPerChunk > 0) builder.setMegabytesCopiedPerChunk((long) megabytesCopiedPerChunk);
+
+        CopyWriter writer = storage.copy(builder.build());
+        listener.onProgress(writer.getTotalBytesCopied(), writer.getBlobSize());
+
+        int resumes = 0;
+        while (!writer.isDone()) {
+            RestorableState<CopyWriter> state = writer.capture();
+
+            try {
+                writer.copyChunk();
+            } catch (StorageException e) {
+                if (!e.isRetryable() || resumes++ >= maxResumes) throw e;
+
+                // Resumes from the rewrite token of the last chunk.
+                writer = state.restore();
+                continue;
+            }
+
+            listener.onProgress(writer.getTotalBytesCopied(), writer.getBlobSize());
+        }
+
+        return writer.getResult();
+    }
+
+    /**
+     * Checks that the target has still the copied generation with the same checksum as the source.
+     * If the checksum doesn't match, the copied generation is deleted.
+     */
+    private void confirm(Blob source, Blob copied) {
+        Blob target = storage.get(copied.getBlobId(), BlobGetOption.fields(
+                BlobField.CRC32C, BlobField.MD5HASH, BlobField.GENERATION));
+        Checksum expected = Checksum.of(source);
+
+        if (target == null || !copied.getGeneration().equals(target.getGeneration())) {
+            throw new IllegalStateException(String.format(
+                    "Blob(%s) has been changed by others while moving Blob(%s)", copied.getBlobId(), source.getBlobId()));
+        }
+
+        if (!expected.matches(target)) {
+            storage.delete(copied.getBlobId(), BlobSourceOption.generationMatch(copied.getGeneration()));
+            throw new ChecksumMismatchException("Checksum of the copied blob(%s) doesn't match: expected %s, actual %s",
+                    copied.getBlobId(), expected, Checksum.of(target));
+        }
+    }
+
+}
@@ -0,0 +1,91 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Im Sejin
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.imsejin.gcstorage.core;
+
+import lombok.Getter;
+
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Bounded pool of direct {@link ByteBuffer}s with the same capacity.
+ *
+ * <p> Direct buffers are expensive to allocate and are released only by GC,
+ * so they are allocated lazily up to {@code maxCount} and reused. When all of them
+ * are in use, {@link #acquire()} waits until one is released, which keeps memory
+ * for transfers at most {@code bufferSize * maxCount} however many run at once.
+ *
+ * <p> A task must not acquire another buffer while holding one,
+ * or the tasks can wait for each other forever.
+ */
+final class BufferPool {
+
+    @Getter
+    private final int bufferSize;
+
+    private final Semaphore permits;
+
+    private final Queue<ByteBuffer> idleBuffers = new ConcurrentLinkedQueue<>();
+
+    BufferPool(int bufferSize, int maxCount) {
+        this.bufferSize = bufferSize;
+        this.permits = new Semaphore(maxCount, true);
+    }
+
+    /**
+     * Returns a cleared buffer from the pool, waiting until one is available.
+     *
+     * @return direct buffer
+     * @throws InterruptedIOException if interrupted while waiting
+     */
+    ByteBuffer acquire() throws InterruptedIOException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a buffer");
+        }
+
+        ByteBuffer buffer = idleBuffers.poll();
+        if (buffer == null) return ByteBuffer.allocateDirect(bufferSize);
+
+        return buffer.clear();
+    }
+
+    /**
+     * Returns the buffer to the pool.
+     * The buffer must not be used after this.
+     *
+     * @param buffer buffer acquired from this pool
+     */
+    void release(ByteBuffer buffer) {
+        idleBuffers.offer(buffer);
+        permits.release();
+    }
+
+}
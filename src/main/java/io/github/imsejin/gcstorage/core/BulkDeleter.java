@@ -0,0 +1,172 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Im Sejin
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.imsejin.gcstorage.core;
+
+import com.google.cloud.BatchResult;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageBatch;
+import com.google.cloud.storage.StorageException;
+import io.github.imsejin.gcstorage.constant.ExecutionMode;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Deleter that sends the names as batch requests, running some of them at the same time.
+ *
+ * <p> The names are consumed as the batches are sent, so that they can be streamed
+ * from a listing without being loaded into memory at once. At most twice as many batches
+ * as the parallelism are waiting to be sent.
+ */
+final class BulkDeleter {
+
+    private final Storage storage;
+
+    private final String bucketName;
+
+    private final int parallelism;
+
+    private final ExecutionMode executionMode;
+
+    BulkDeleter(Storage storage, String bucketName, int parallelism, ExecutionMode executionMode) {
+        this.storage = storage;
+        this.bucketName = bucketName;
+        this.parallelism = parallelism;
+        this.executionMode = executionMode;
+    }
+
+    /**
+     * Deletes the blobs of the names.
+     *
+     * @param names names of the blobs
+     * @return result of the deletion
+     * @throws IOException if interrupted while deleting
+     */
+    BlobDeletionResult delete(Iterator<String> names) throws IOException {
+        Semaphore permits = new Semaphore(parallelism * 2);
+        List<Future<Outcome>> futures = new ArrayList<>();
+        ExecutorService executor = Tasks.newExecutor(executionMode, parallelism);
+
+        List<Outcome> outcomes;
+        try {
+            while (names.hasNext()) {
+                List<String> batchNames = new ArrayList<>(Helper.MAX_BATCH_SIZE);
+                while (names.hasNext() && batchNames.size() < Helper.MAX_BATCH_SIZE) {
+                    batchNames.add(names.next());
+                }
+
+                acquire(permits);
+                futures.add(executor.submit(() -> {
+                    try {
+                        return deleteBatch(batchNames);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+
+            outcomes = Tasks.getAll(futures, "deleting blobs");
+        } finally {
+            futures.forEach(it -> it.cancel(true));
+            Tasks.shutdown(executor);
+        }
+
+        Outcome total = new Outcome();
+        outcomes.forEach(total::addAll);
+
+        return new BlobDeletionResult(Collections.unmodifiableList(total.deletedNames),
+                Collections.unmodifiableList(total.missingNames), Collections.unmodifiableMap(total.errors));
+    }
+
+    private Outcome deleteBatch(List<String> names) {
+        Outcome outcome = new Outcome();
+        StorageBatch batch = storage.batch();
+
+        for (String name : names) {
+            batch.delete(BlobId.of(bucketName, name)).notify(new BatchResult.Callback<Boolean, StorageException>() {
+                @Override
+                public void success(Boolean deleted) {
+                    if (deleted) {
+                        outcome.deletedNames.add(name);
+                    } else {
+                        outcome.missingNames.add(name);
+                    }
+                }
+
+                @Override
+                public void error(StorageException e) {
+                    outcome.errors.put(name, e);
+                }
+            });
+        }
+
+        try {
+            batch.submit();
+        } catch (StorageException e) {
+            // The batch can fail after some of the callbacks, whose outcomes are kept as they are.
+            for (String name : names) {
+                if (!outcome.contains(name)) outcome.errors.put(name, e);
+            }
+        }
+
+        return outcome;
+    }
+
+    private static void acquire(Semaphore permits) throws InterruptedIOException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a batch to be sent");
+        }
+    }
+
+    private static final class Outcome {
+        private final List<String> deletedNames = new ArrayList<>();
+        private final List<String> missingNames = new ArrayList<>();
+        private final Map<String, StorageException> errors = new LinkedHashMap<>();
+
+        private boolean contains(String name) {
+            return errors.containsKey(name) || deletedNames.contains(name) || missingNames.contains(name);
+        }
+
+        private void addAll(Outcome other) {
+            deletedNames.addAll(other.deletedNames);
+            missingNames.addAll(other.missingNames);
+            errors.putAll(other.errors);
+        }
+    }
+
+}
@@ -0,0 +1,261 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Im Sejin
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.imsejin.gcstorage.core;
+
+import com.google.cloud.BatchResult;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.Storage.BlobSourceOption;
+import com.google.cloud.storage.StorageBatch;
+import com.google.cloud.storage.StorageException;
+import io.github.imsejin.gcstorage.constant.ExecutionMode;
+import io.github.imsejin.gcstorage.exception.NoSuchBlobException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.function.UnaryOperator;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Mover that copies the blobs at the same time, and deletes their sources as batch requests.
+ *
+ * <p> The blobs are consumed as they are copied, so that they can be streamed
+ * from a listing without being loaded into memory at once. A source is deleted
+ * only after its copy is confirmed, with the sources of the other confirmed copies
+ * in a batch of up to {@value Helper#MAX_BATCH_SIZE}.
+ */
+final class BulkMover {
+
+    /**
+     * HTTP status code of not found.
+     */
+    private static final int NOT_FOUND = 404;
+
+    private final Storage storage;
+
+    private final BlobMover mover;
+
+    private final int parallelism;
+
+    private final ExecutionMode executionMode;
+
+    private final List<Copy> confirmedCopies = new ArrayList<>();
+
+    private final Map<String, String> movedNames = new LinkedHashMap<>();
+
+    private final List<String> missingNames = new ArrayList<>();
+
+    private final Map<String, RuntimeException> errors = new LinkedHashMap<>();
+
+    BulkMover(Storage storage, BlobMover mover, int parallelism, ExecutionMode executionMode) {
+        this.storage = storage;
+        this.mover = mover;
+        this.parallelism = parallelism;
+        this.executionMode = executionMode;
+    }
+
+    /**
+     * Moves the blobs to the new names.
+     *
+     * @param sources blobs with generation and checksum
+     * @param naming  function that returns new name of the blob from its name
+     * @return result of the move
+     * @throws IOException if interrupted while moving
+     */
+    BlobMoveResult move(Iterator<Blob> sources, UnaryOperator<String> naming) throws IOException {
+        Semaphore permits = new Semaphore(parallelism * 2);
+        List<Future<?>> futures = new ArrayList<>();
+        ExecutorService executor = Tasks.newExecutor(executionMode, parallelism);
+
+        try {
+            while (sources.hasNext()) {
+                Blob source = sources.next();
+                String targetName = naming.apply(source.getName());
+
+                acquire(permits);
+                futures.add(executor.submit(() -> {
+                    try {
+                        copy(source, BlobId.of(source.getBucket(), targetName));
+                    } finally {
+                        permits.release();
+                    }
+                }));
+
+                // Completed tasks have recorded their outcomes, so only the running ones are kept.
+                List<Future<?>> completed = futures.stream().filter(Future::isDone).collect(toList());
+                Tasks.awaitAll(completed, "moving blobs");
+                futures.removeAll(completed);
+            }
+
+            Tasks.awaitAll(futures, "moving blobs");
+        } finally {
+            futures.forEach(it -> it.cancel(true));
+            Tasks.shutdown(executor);
+
+            // Even on failure, the sources of the confirmed copies are deleted not to leave them duplicated.
+            deleteSources(drainConfirmedCopies(0));
+        }
+
+        return toResult();
+    }
+
+    /**
+     * Returns the outcomes recorded so far, which are all of them after {@link #move(Iterator, UnaryOperator)}
+     * returns or throws.
+     *
+     * @return result of the move
+     */
+    synchronized BlobMoveResult toResult() {
+        return new BlobMoveResult(Collections.unmodifiableMap(new LinkedHashMap<>(movedNames)),
+                List.copyOf(missingNames), Collections.unmodifiableMap(new LinkedHashMap<>(errors)));
+    }
+
+    private void copy(Blob source, BlobId target) {
+        String name = source.getName();
+
+        try {
+            mover.copy(source, target, (bytesCopied, blobSize) -> {
+            });
+        } catch (NoSuchBlobException e) {
+            addMissing(name);
+            return;
+        } catch (StorageException e) {
+            if (e.getCode() == NOT_FOUND) {
+                addMissing(name);
+            } else {
+                addError(name, e);
+            }
+            return;
+        } catch (RuntimeException e) {
+            addError(name, e);
+            return;
+        }
+
+        deleteSources(drainConfirmedCopies(new Copy(source, target.getName())));
+    }
+
+    /**
+     * Deletes the sources of the confirmed copies as a batch request.
+     * A source already deleted is regarded as moved, because its copy has been confirmed.
+     */
+    private void deleteSources(List<Copy> copies) {
+        if (copies.isEmpty()) return;
+
+        StorageBatch batch = storage.batch();
+        Set<String> reportedNames = new HashSet<>();
+        for (Copy copy : copies) {
+            String name = copy.source.getName();
+            batch.delete(BlobMover.toSourceId(copy.source), BlobSourceOption.generationMatch())
+                    .notify(new BatchResult.Callback<Boolean, StorageException>() {
+                        @Override
+                        public void success(Boolean deleted) {
+                            reportedNames.add(name);
+                            addMoved(name, copy.targetName);
+                        }
+
+                        @Override
+                        public void error(StorageException e) {
+                            reportedNames.add(name);
+                            addError(name, e);
+                        }
+                    });
+        }
+
+        try {
+            batch.submit();
+        } catch (StorageException e) {
+            // The batch can fail after some of the callbacks, so only the other sources remain.
+            for (Copy copy : copies) {
+                String name = copy.source.getName();
+                if (!reportedNames.contains(name)) addError(name, e);
+            }
+        }
+    }
+
+    /**
+     * Adds the confirmed copy, and takes a batch of them if it is full.
+     *
+     * @param copy confirmed copy
+     * @return copies whose sources are to be deleted, or empty list if the batch is not full yet
+     */
+    private synchronized List<Copy> drainConfirmedCopies(Copy copy) {
+        confirmedCopies.add(copy);
+        return drainConfirmedCopies(Helper.MAX_BATCH_SIZE);
+    }
+
+    private synchronized List<Copy> drainConfirmedCopies(int minSize) {
+        if (confirmedCopies.isEmpty() || confirmedCopies.size() < minSize) return Collections.emptyList();
+
+        List<Copy> copies = new ArrayList<>(confirmedCopies);
+        confirmedCopies.clear();
+
+        return copies;
+    }
+
+    private synchronized void addMoved(String name, String newName) {
+        movedNames.put(name, newName);
+    }
+
+    private synchronized void addMissing(String name) {
+        missingNames.add(name);
+    }
+
+    private synchronized void addError(String name, RuntimeException e) {
+        errors.putIfAbsent(name, e);
+    }
+
+    private static void acquire(Semaphore permits) throws InterruptedIOException {
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for a blob to be copied");
+        }
+    }
+
+    private static final class Copy {
+        private final Blob source;
+        private final String targetName;
+
+        private Copy(Blob source, String targetName) {
+            this.source = source;
+            this.targetName = targetName;
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Im Sejin
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.imsejin.gcstorage.core;
+
+import com.google.cloud.storage.BlobInfo;
+import lombok.AccessLevel;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+
+/**
+ * Checksum of the uploaded content, encoded in base64 as Google Cloud Storage does.
+ *
+ * <pre>
+ * Checksum checksum = upload(blobId, file);
+ *
+ * checksum.getCrc32c() // "rth90Q=="
+ * checksum.getMd5() // "1B2M2Y8AsgTpgAmY7PhCfg==" or null
+ * </pre>
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@RequiredArgsConstructor(access = AccessLevel.PACKAGE)
+public final class Checksum {
+
+    /**
+     * CRC32C of the content.
+     */
+    private final String crc32c;
+
+    /**
+     * MD5 hash of the content. It is null when it is not computed,
+     * or the blob is composite which has no MD5 hash.
+     */
+    @Nullable
+    private final String md5;
+
+    static Checksum of(BlobInfo blobInfo) {
+        return new Checksum(blobInfo.getCrc32c(), blobInfo.getMd5());
+    }
+
+    /**
+     * Returns whether the blob has the same checksum as this.
+     * MD5 hash is compared only if both have it.
+     *
+     * @param blobInfo information of the blob
+     * @return whether the checksum matches
+     */
+    boolean matches(@Nullable BlobInfo blobInfo) {
+        if (blobInfo == null || !Objects.equals(crc32c, blobInfo.getCrc32c())) return false;
+
+        return md5 == null || blobInfo.getMd5() == null || md5.equals(blobInfo.getMd5());
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Im Sejin
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.imsejin.gcstorage.core;
+
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.Storage.BlobField;
+import com.google.cloud.storage.Storage.BlobGetOption;
+import com.google.cloud.storage.Storage.BlobSourceOption;
+import com.google.common.primitives.Ints;
+import io.github.imsejin.gcstorage.exception.ChecksumMismatchException;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.zip.CRC32C;
+
+/**
+ * Calculator of CRC32C and optionally MD5 hash, which is fed with the bytes
+ * on their way to the storage, so that the content is never read twice.
+ */
+final class ChecksumCalculator {
+
+    private final CRC32C crc32c = new CRC32C();
+
+    @Nullable
+    private final MessageDigest md5;
+
+    ChecksumCalculator(boolean md5Enabled) {
+        this.md5 = md5Enabled ? newMd5Digest() : null;
+    }
+
+    /**
+     * Updates the checksum with the remaining bytes of the buffer.
+     * Position of the buffer is not changed.
+     *
+     * @param buffer buffer to be written
+     */
+    void update(ByteBuffer buffer) {
+        crc32c.update(buffer.duplicate());
+        if (md5 != null) md5.update(buffer.duplicate());
+    }
+
+    Checksum toChecksum() {
+        String crc32cHash = encode(Ints.toByteArray((int) crc32c.getValue()));
+        String md5Hash = md5 == null ? null : encode(md5.digest());
+
+        return new Checksum(crc32cHash, md5Hash);
+    }
+
+    /**
+     * Compares the checksum with the one of the blob which is computed by server.
+     * If they don't match, the generation that has been compared is deleted,
+     * not to be read as valid one.
+     *
+     * <p> The blob must be the one that only this upload writes, such as a staging blob
+     * or a component with a unique name. {@link com.google.cloud.WriteChannel} of this client
+     * doesn't return the generation it has written, so the latest generation is taken for it.
+     *
+     * @param storage  storage
+     * @param blobId   ID of the blob that only this upload writes
+     * @param expected checksum computed while uploading
+     * @return expected checksum
+     * @throws ChecksumMismatchException if the checksums don't match
+     */
+    static Checksum verify(Storage storage, BlobId blobId, Checksum expected) {
+        Blob blob = storage.get(blobId, BlobGetOption.fields(
+                BlobField.CRC32C, BlobField.MD5HASH, BlobField.GENERATION));
+        if (expected.matches(blob)) return expected;
+
+        if (blob != null) {
+            storage.delete(blob.getBlobId(), BlobSourceOption.generationMatch(blob.getGeneration()));
+        }
+
+        throw new ChecksumMismatchException("Checksum of the uploaded blob(%s) doesn't match: expected %s, actual %s",
+                blobId, expected, blob == null ? null : Checksum.of(blob));
+    }
+
+    private static String encode(byte[] hash) {
+        return Base64.getEncoder().encodeToString(hash);
+    }
+
+    private static MessageDigest newMd5Digest() {
+        try {
+            return MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException e) {
+            // Every implementation of the Java platform is required to support MD5.
+            throw new IllegalStateException(e);
+        }
+    }
+
+}
@@ -0,0 +1,176 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Im Sejin
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.imsejin.gcstorage.core;
+
+import com.google.cloud.WriteChannel;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.Storage.ComposeRequest;
+import com.google.cloud.storage.StorageException;
+import io.github.imsejin.gcstorage.constant.ExecutionMode;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Uploader that splits a file into slices, uploads them at the same time
+ * as temporary component blobs and merges them into the target blob.
+ *
+ * <pre>
+ * foo.zip (2 GB)
+ * ├─ foo.zip.composite-{uuid}-0 (256 MB) ─┐
+ * ├─ foo.zip.composite-{uuid}-1 (256 MB) ─┤
+ * ├─ ...                                  ├─ compose ─→ foo.zip
+ * └─ foo.zip.composite-{uuid}-7 (256 MB) ─┘
+ * </pre>
+ *
+ * <p> Each component is verified with its checksum before they are composed,
+ * and CRC32C of the composed blob is computed by server from the components.
+ *
+ * <p> The component blobs are always deleted after the upload, whether it succeeds or not.
+ */
+final class CompositeUploader {
+
+    private final Storage storage;
+
+    private final BufferPool bufferPool;
+
+    private final int sliceCount;
+
+    private final long minSliceSize;
+
+    private final boolean md5Enabled;
+
+    private final ExecutionMode executionMode;
+
+    CompositeUploader(Storage storage, HelperOptions options, BufferPool bufferPool) {
+        this.storage = storage;
+        this.bufferPool = bufferPool;
+        this.sliceCount = options.getCompositeSliceCount();
+        this.minSliceSize = options.getCompositeMinSliceSize();
+        this.md5Enabled = options.isMd5Enabled();
+        this.executionMode = options.getExecutionMode();
+    }
+
+    /**
+     * Returns the number of slices for the file length.
+     * If it is less than 2, the file doesn't need to be uploaded as composite.
+     *
+     * @param length length of the file
+     * @return number of slices
+     */
+    int countSlices(long length) {
+        return (int) Math.max(1, Math.min(sliceCount, length / minSliceSize));
+    }
+
+    /**
+     * Uploads a file as composite blob.
+     *
+     * @param blobInfo information of the blob
+     * @param path     file to be uploaded
+     * @param length   length of the file
+     * @return composed blob
+     * @throws IOException if failed to read the file or upload a slice
+     */
+    Blob upload(BlobInfo blobInfo, Path path, long length) throws IOException {
+        int count = countSlices(length);
+        long sliceSize = (length + count - 1) / count;
+
+        String bucketName = blobInfo.getBlobId().getBucket();
+        String prefix = String.format("%s.composite-%s-", blobInfo.getName(), UUID.randomUUID());
+
+        List<BlobId> componentIds = new ArrayList<>(count);
+        List<Future<?>> futures = new ArrayList<>(count);
+        ExecutorService executor = Tasks.newExecutor(executionMode, count);
+
+        try {
+            for (int i = 0; i < count; i++) {
+                long position = i * sliceSize;
+                long size = Math.min(sliceSize, length - position);
+                BlobInfo componentInfo = BlobInfo.newBuilder(BlobId.of(bucketName, prefix + i)).build();
+
+                componentIds.add(componentInfo.getBlobId());
+                futures.add(executor.submit(() -> {
+                    uploadSlice(componentInfo, path, position, size);
+                    return null;
+                }));
+            }
+
+            Tasks.awaitAll(futures, "uploading slices");
+
+            ComposeRequest request = ComposeRequest.newBuilder()
+                    .addSource(componentIds.stream().map(BlobId::getName).collect(toList()))
+                    .setTarget(blobInfo)
+                    .build();
+
+            return storage.compose(request);
+        } finally {
+            futures.forEach(it -> it.cancel(true));
+            // Waits for the slices being uploaded, not to leave any component after cleanup.
+            Tasks.shutdown(executor);
+            deleteQuietly(componentIds);
+        }
+    }
+
+    private void uploadSlice(BlobInfo componentInfo, Path path, long position, long size) throws IOException {
+        ChecksumCalculator calculator = new ChecksumCalculator(md5Enabled);
+        ByteBuffer buffer = bufferPool.acquire();
+
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            WriteChannel writableChannel = storage.writer(componentInfo);
+            writableChannel.setChunkSize(bufferPool.getBufferSize());
+
+            Transfer.copy(in, position, size, writableChannel, buffer, calculator);
+            writableChannel.close();
+        } finally {
+            bufferPool.release(buffer);
+        }
+
+        ChecksumCalculator.verify(storage, componentInfo.getBlobId(), calculator.toChecksum());
+    }
+
+    private void deleteQuietly(List<BlobId> componentIds) {
+        if (componentIds.isEmpty()) return;
+
+        try {
+            storage.delete(componentIds);
+        } catch (StorageException ignored) {
+            // Leftover components don't affect the composed blob.
+        }
+    }
+
+}
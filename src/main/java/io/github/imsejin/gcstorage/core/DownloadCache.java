@@ -0,0 +1,409 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Im Sejin
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.imsejin.gcstorage.core;
+
+import com.google.cloud.storage.Blob;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.Striped;
+import lombok.RequiredArgsConstructor;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.Lock;
+import java.util.stream.Stream;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Read-through cache of downloaded blobs on local disk.
+ *
+ * <p> A blob is cached as a file named with the hash of its bucket and name,
+ * and its generation. So an overwritten blob is never served from the cache,
+ * as long as its generation is known.
+ *
+ * <pre>
+ * /data/google-cloud-storage/download-cache
+ * ├─ 3a7bd3e2360a3d29eea436fcfb7e44c735d117c42d1c1835420b6b9942dd4f1b.1612345678901234
+ * └─ 9f86d081884c7d659a2feaa0c55ad015a3bf4f1b2b0b822cd15d6c15b0f00a08.1609876543210987
+ * </pre>
+ *
+ * <p> When the cache exceeds its size limit, the least recently used files are deleted.
+ * Partial downloads left by the previous process are counted as well, and deleted
+ * in the same order unless they are continued.
+ * The generation of a blob got from server is trusted for the TTL,
+ * so that the blob is served without any request within it.
+ *
+ * <p> A cached file is served with a hard link when it is enabled, otherwise with a copy
+ * by {@link FileChannel#transferTo(long, long, java.nio.channels.WritableByteChannel)},
+ * which doesn't pass the bytes through user space on most platforms.
+ */
+final class DownloadCache {
+
+    private static final String PART_EXTENSION = ".part";
+
+    private final Path directory;
+
+    private final long maxSize;
+
+    private final Duration ttl;
+
+    private final boolean hardLink;
+
+    /**
+     * Every operation on cached files of a blob is done under its lock, except download.
+     */
+    private final Striped<Lock> locks = Striped.lock(64);
+
+    /**
+     * Sizes of the cached files in order of access, guarded by itself.
+     */
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75F, true);
+
+    /**
+     * Generations validated within the TTL by blob, which are dropped with their files.
+     */
+    private final Map<String, Validation> validations = new ConcurrentHashMap<>();
+
+    /**
+     * Downloads running now by filename.
+     */
+    private final Map<String, CompletableFuture<Void>> downloads = new ConcurrentHashMap<>();
+
+    private long totalSize;
+
+    DownloadCache(Path directory, long maxSize, Duration ttl, boolean hardLink) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        this.maxSize = maxSize;
+        this.ttl = ttl;
+        this.hardLink = hardLink;
+
+        // Restores the entries cached by the previous process, the least recently used first.
+        List<Path> paths;
+        try (Stream<Path> stream = Files.list(directory)) {
+            paths = stream.filter(Files::isRegularFile).collect(toList());
+        }
+
+        paths.sort(Comparator.comparing(DownloadCache::getLastModifiedTime));
+        for (Path path : paths) {
+            // Partial downloads are counted until they are continued, not to be left forever.
+            add(path.getFileName().toString(), Files.size(path));
+        }
+    }
+
+    /**
+     * Serves the blob from the cache without any request, if its generation
+     * has been validated within the TTL and the file of the generation is cached.
+     *
+     * @param bucketName name of the bucket
+     * @param blobName   name of the blob
+     * @param target     file to be written, which is replaced if exists
+     * @return whether the blob is served from the cache
+     * @throws IOException if failed to write the file
+     */
+    boolean copyIfFresh(String bucketName, String blobName, Path target) throws IOException {
+        String key = keyOf(bucketName, blobName);
+        Validation validation = validations.get(key);
+        if (validation == null) return false;
+        if (validation.isExpired(ttl)) {
+            validations.remove(key, validation);
+            return false;
+        }
+
+        String filename = key + '.' + validation.generation;
+        Lock lock = locks.get(filename);
+        lock.lock();
+        try {
+            if (!touch(filename)) {
+                validations.remove(key, validation);
+                return false;
+            }
+
+            export(directory.resolve(filename), target);
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Serves the blob from the cache, downloading it into the cache first if not cached.
+     *
+     * <p> The blob is downloaded without the lock of its file, so that the other blobs
+     * are not blocked behind the download. Only the same blob waits for it,
+     * instead of downloading it again.
+     *
+     * @param blob       blob
+     * @param target     file to be written, which is replaced if exists
+     * @param downloader downloader of the blob
+     * @throws IOException if failed to download the blob or write the file
+     */
+    void copy(Blob blob, Path target, Downloader downloader) throws IOException {
+        String key = keyOf(blob.getBucket(), blob.getName());
+        String filename = key + '.' + blob.getGeneration();
+        Path path = directory.resolve(filename);
+
+        while (true) {
+            Lock lock = locks.get(filename);
+            lock.lock();
+            try {
+                if (touch(filename) || publish(filename, path)) {
+                    validations.put(key, new Validation(blob.getGeneration(), System.nanoTime()));
+                    export(path, target);
+                    break;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            // The file can be evicted before it is served, then it is downloaded again.
+            download(blob, path, filename, downloader);
+        }
+
+        evict();
+    }
+
+    /**
+     * Forgets the generation of the blob, so that it is validated on the next download.
+     *
+     * @param bucketName name of the bucket
+     * @param blobName   name of the blob
+     */
+    void invalidate(String bucketName, String blobName) {
+        validations.remove(keyOf(bucketName, blobName));
+    }
+
+    private boolean touch(String filename) throws IOException {
+        synchronized (entries) {
+            if (entries.get(filename) == null) return false;
+        }
+
+        try {
+            // Keeps the order of access for the next process.
+            Files.setLastModifiedTime(directory.resolve(filename), FileTime.fromMillis(System.currentTimeMillis()));
+            return true;
+        } catch (NoSuchFileException e) {
+            remove(filename);
+            return false;
+        }
+    }
+
+    /**
+     * Adds the downloaded file to the entries, if it has been downloaded.
+     */
+    private boolean publish(String filename, Path path) throws IOException {
+        // The file is moved to the path atomically when it is complete.
+        if (Files.notExists(path)) return false;
+
+        add(filename, Files.size(path));
+        return true;
+    }
+
+    /**
+     * Downloads the blob into the path, or waits for the same download running on another thread.
+     * Failure of the other download is not thrown, so that the caller tries it again by itself.
+     */
+    private void download(Blob blob, Path path, String filename, Downloader downloader) throws IOException {
+        CompletableFuture<Void> download = new CompletableFuture<>();
+        CompletableFuture<Void> running = downloads.putIfAbsent(filename, download);
+
+        if (running != null) {
+            try {
+                running.get();
+            } catch (ExecutionException ignored) {
+                // Tries it again by itself.
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the download of " + filename);
+            }
+            return;
+        }
+
+        try {
+            // The partial download is continued now, so it must not be evicted.
+            removeParts(filename);
+
+            downloader.download(blob, path);
+            download.complete(null);
+        } catch (IOException | RuntimeException e) {
+            download.completeExceptionally(e);
+            throw e;
+        } finally {
+            downloads.remove(filename, download);
+        }
+    }
+
+    private void add(String filename, long size) {
+        synchronized (entries) {
+            Long old = entries.put(filename, size);
+            totalSize += size - (old == null ? 0 : old);
+        }
+    }
+
+    private void remove(String filename) {
+        synchronized (entries) {
+            Long size = entries.remove(filename);
+            if (size != null) totalSize -= size;
+        }
+    }
+
+    private void removeParts(String filename) {
+        synchronized (entries) {
+            for (Iterator<Map.Entry<String, Long>> it = entries.entrySet().iterator(); it.hasNext(); ) {
+                Map.Entry<String, Long> entry = it.next();
+                String name = entry.getKey();
+                if (!name.startsWith(filename + '.') || !name.endsWith(PART_EXTENSION)) continue;
+
+                totalSize -= entry.getValue();
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Deletes the least recently used files until the cache fits in the size limit.
+     * A file being served is skipped instead of waiting for it.
+     */
+    private void evict() throws IOException {
+        while (true) {
+            String eldest = null;
+            Lock lock = null;
+            synchronized (entries) {
+                if (totalSize <= maxSize) return;
+
+                for (Iterator<String> it = entries.keySet().iterator(); it.hasNext() && eldest == null; ) {
+                    String filename = it.next();
+                    Lock candidate = locks.get(filename);
+                    if (!candidate.tryLock()) continue;
+
+                    totalSize -= entries.get(filename);
+                    it.remove();
+                    eldest = filename;
+                    lock = candidate;
+                }
+
+                // Every file is being served now.
+                if (eldest == null) return;
+            }
+
+            // Deletes the file out of the monitor, still under its own lock not to be served.
+            try {
+                Files.deleteIfExists(directory.resolve(eldest));
+                forget(eldest);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Drops the validation of the evicted file, not to be kept for the blob never downloaded again.
+     */
+    private void forget(String filename) {
+        if (filename.endsWith(PART_EXTENSION)) return;
+
+        int index = filename.lastIndexOf('.');
+        String key = filename.substring(0, index);
+        String generation = filename.substring(index + 1);
+        validations.computeIfPresent(key, (k, v) -> String.valueOf(v.generation).equals(generation) ? null : v);
+    }
+
+    private void export(Path source, Path target) throws IOException {
+        Path temp = target.resolveSibling(target.getFileName() + "." + UUID.randomUUID() + ".tmp");
+
+        try {
+            if (hardLink) {
+                try {
+                    Files.createLink(temp, source);
+                } catch (UnsupportedOperationException | FileSystemException e) {
+                    // When the target is on the other file system.
+                    transfer(source, temp);
+                }
+            } else {
+                transfer(source, temp);
+            }
+
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private static void transfer(Path source, Path target) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+             FileChannel out = FileChannel.open(target, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+            long size = in.size();
+            for (long position = 0; position < size; ) {
+                position += in.transferTo(position, size - position, out);
+            }
+        }
+    }
+
+    private static String keyOf(String bucketName, String blobName) {
+        return Hashing.sha256().hashString(bucketName + '/' + blobName, StandardCharsets.UTF_8).toString();
+    }
+
+    private static FileTime getLastModifiedTime(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    @FunctionalInterface
+    interface Downloader {
+        void download(Blob blob, Path path) throws IOException;
+    }
+
+    @RequiredArgsConstructor
+    private static final class Validation {
+        private final long generation;
+        private final long validatedAt;
+
+        private boolean isExpired(Duration ttl) {
+            return System.nanoTime() - validatedAt > ttl.toNanos();
+        }
+    }
+
+}
@@ -0,0 +1,147 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Im Sejin
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.imsejin.gcstorage.core;
+
+import com.google.cloud.ReadChannel;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.Blob.BlobSourceOption;
+import com.google.cloud.storage.StorageException;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Downloader that writes a blob into a temporary file next to the target
+ * and renames it to the target atomically when it is complete,
+ * so that a half-written file is never seen at the target.
+ *
+ * <pre>
+ * /data/downloads
+ * ├─ foo.zip.1612345678901234.part (being downloaded, generation 1612345678901234)
+ * └─ foo.zip                       (complete)
+ * </pre>
+ *
+ * <p> The temporary file is named with the generation of the blob, and its length is
+ * the number of bytes received so far. When the same generation is downloaded again
+ * after a failure, continues from the length with a generation-match precondition.
+ * If the blob has been changed since then, the temporary file is discarded
+ * instead of being mixed with the other generation.
+ */
+final class FileDownloader {
+
+    private static final String PART_EXTENSION = ".part";
+
+    private static final String SLICES_PART_EXTENSION = ".slices" + PART_EXTENSION;
+
+    private final HelperOptions options;
+
+    private final BufferPool bufferPool;
+
+    FileDownloader(HelperOptions options, BufferPool bufferPool) {
+        this.options = options;
+        this.bufferPool = bufferPool;
+    }
+
+    /**
+     * Downloads a blob into the file.
+     *
+     * @param blob blob
+     * @param path file to be written, which is replaced if exists
+     * @throws IOException      if failed to read the blob or write the file
+     * @throws StorageException if the blob has been changed since it was got
+     */
+    void download(Blob blob, Path path) throws IOException {
+        String filename = path.getFileName().toString();
+        deleteStaleParts(path.getParent(), filename, blob.getGeneration());
+
+        // For a big blob that can be split into slices.
+        if (options.isParallelSlicedDownload()) {
+            SlicedDownloader downloader = new SlicedDownloader(options, bufferPool);
+            if (downloader.countSlices(blob.getSize()) > 1) {
+                // Slices are written at random, so the length of the file is not the bytes received.
+                Path temp = path.resolveSibling(filename + '.' + blob.getGeneration() + SLICES_PART_EXTENSION);
+                try {
+                    downloader.download(blob, temp);
+                } catch (IOException | RuntimeException e) {
+                    Files.deleteIfExists(temp);
+                    throw e;
+                }
+
+                Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                return;
+            }
+        }
+
+        Path temp = path.resolveSibling(filename + '.' + blob.getGeneration() + PART_EXTENSION);
+        long size = blob.getSize();
+        long offset = Files.exists(temp) ? Files.size(temp) : 0;
+        if (offset > size) {
+            Files.delete(temp);
+            offset = 0;
+        }
+
+        ByteBuffer buffer = bufferPool.acquire();
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+             ReadChannel readChannel = blob.reader(BlobSourceOption.generationMatch())) {
+            readChannel.setChunkSize(bufferPool.getBufferSize());
+            readChannel.seek(offset);
+
+            Transfer.copy(readChannel, out, offset, size - offset, buffer);
+        } catch (StorageException e) {
+            // The blob has been changed, so the bytes received can't be continued.
+            if (e.getCode() == 412) Files.deleteIfExists(temp);
+            throw e;
+        } finally {
+            bufferPool.release(buffer);
+        }
+
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Deletes the temporary files of the other generations, which can never be continued.
+     */
+    private static void deleteStaleParts(Path dir, String filename, Long generation) throws IOException {
+        Pattern pattern = Pattern.compile(Pattern.quote(filename + '.') + "(\\d+)(\\.slices)?\\.part");
+
+        try (DirectoryStream<Path> paths = Files.newDirectoryStream(dir, it -> {
+            Matcher matcher = pattern.matcher(it.getFileName().toString());
+            return matcher.matches() && !matcher.group(1).equals(String.valueOf(generation));
+        })) {
+            for (Path path : paths) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+}
@@ -24,11 +24,18 @@
 
 package io.github.imsejin.gcstorage.core;
 
-import com.google.api.gax.paging.Page;
+import com.google.cloud.BatchResult;
+import com.google.cloud.ReadChannel;
 import com.google.cloud.WriteChannel;
 import com.google.cloud.storage.*;
+import com.google.cloud.storage.Storage.BlobField;
+import com.google.cloud.storage.Storage.BlobGetOption;
 import com.google.cloud.storage.Storage.BlobListOption;
-import com.google.common.collect.Lists;
+import com.google.cloud.storage.Storage.BlobWriteOption;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
 import io.github.imsejin.common.assertion.Asserts;
 import io.github.imsejin.common.util.CollectionUtils;
 import io.github.imsejin.common.util.StringUtils;
@@ -39,20 +46,27 @@ import lombok.*;
 import org.apache.http.client.utils.URIBuilder;
 
 import org.jetbrains.annotations.Nullable;
-import java.io.ByteArrayInputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URL;
 import java.net.URLDecoder;
 import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import static java.util.stream.Collectors.toList;
 
@@ -69,25 +83,61 @@ public final class Helper {
 
     private static final String TOKEN_KEY = "firebaseStorageDownloadTokens";
 
+    /**
+     * Maximum number of requests in a batch request.
+     */
+    static final int MAX_BATCH_SIZE = 100;
+
+    /**
+     * Maximum number of directories whose high-water mark is kept for {@link #getLastBlob(String, boolean)}.
+     */
+    private static final int MAX_LAST_PAGE_TOKENS = 1000;
+
     @Getter
     private final String bucketName;
 
     private final Storage storage;
 
+    @Getter
+    private final HelperOptions options;
+
+    private final BufferPool bufferPool;
+
+    @Nullable
+    private final DownloadCache downloadCache;
+
+    @Nullable
+    private final MetadataCache metadataCache;
+
+    @Nullable
+    private final ListingCache listingCache;
+
+    /**
+     * Token of the page where the last blob has been found, by directory.
+     */
+    private final Cache<String, String> lastPageTokens = CacheBuilder.newBuilder()
+            .maximumSize(MAX_LAST_PAGE_TOKENS)
+            .build();
+
     /**
      * Checks whether the blob exists or not.
      *
-     * @param blob   blob
-     * @param blobId id of the blob
+     * <p> Storage returns null for a blob that doesn't exist, so a blob got from it
+     * has existed. With recheck, asks again whether the generation of the blob
+     * still exists, which costs another request.
+     *
+     * @param blob    blob got from storage
+     * @param blobId  id of the blob
+     * @param recheck whether to ask again whether the blob exists
      * @return blob
      * @throws NoSuchBlobException if the blob doesn't exist
      */
-    private static Blob checkExistence(Blob blob, BlobId blobId) {
+    private static Blob checkExistence(@Nullable Blob blob, BlobId blobId, boolean recheck) {
         Asserts.that(blob)
                 .describedAs("Could not find the blob: '{0}/{1}'", blobId.getBucket(), blobId.getName())
                 .thrownBy(NoSuchBlobException::new)
                 .isNotNull()
-                .is(Blob::exists);
+                .is(it -> !recheck || it.exists());
 
         return blob;
     }
@@ -102,9 +152,7 @@ public final class Helper {
         return blob != null && blob.exists();
     }
 
-    private static void sortByDirectory(List<Blob> blobs, boolean dirFirst) {
-        if (CollectionUtils.isNullOrEmpty(blobs) || blobs.size() == 1) return;
-
+    private static Comparator<Blob> orderByDirectory(boolean dirFirst) {
         Function<Blob, Boolean> orderByDirectory;
         if (dirFirst) {
             // 디렉터리 내림차순: [Directory, Directory, File, File]
@@ -114,7 +162,7 @@ public final class Helper {
             orderByDirectory = Blob::isDirectory;
         }
 
-        blobs.sort(Comparator.comparing(orderByDirectory).thenComparing(Blob::getName));
+        return Comparator.comparing(orderByDirectory).thenComparing(Blob::getName);
     }
 
     /**
@@ -123,11 +171,27 @@ public final class Helper {
      * <p> When length of a file is less than 1MB, gets all bytes from a file
      * and pass them on instance of storage to create a blob.
      *
-     * <p> When the length is greater than or equal to 1MB, reads all bytes with a buffer
-     * and pass them on {@link WriteChannel} of storage to create a blob.
+     * <p> When the length is greater than or equal to 1MB, reads the file into a pooled
+     * direct buffer as large as {@link HelperOptions#getUploadChunkSize()} and pass it on the channel
+     * to create a blob. The channel is closed only on success, because closing it
+     * finalizes the blob with the bytes written so far.
+     *
+     * <p> When {@link HelperOptions#isParallelCompositeUpload()} is enabled and the file
+     * can be split into two or more slices, uploads the slices at the same time
+     * and composes them into a blob.
+     *
+     * <p> When {@link HelperOptions#getUploadJournalDirectory()} is set, saves a checkpoint
+     * whenever a chunk is written and continues from the last one on the next upload
+     * of the same file after the process dies.
+     *
+     * <p> CRC32C and optionally MD5 hash are computed from the buffer before it is passed
+     * on the channel, and compared with the ones computed by server after the upload.
+     * The file is never read twice for them. The file is written as a staging blob
+     * and rewritten into the blob only after they match, as {@link StagedUpload} does.
      *
      * <p> The following code has a problem that {@link WritableByteChannel} can't receive
-     * more than 2GB of data transferred by {@link java.nio.channels.FileChannel}.
+     * more than 2GB of data transferred by {@link FileChannel}, and the transfer
+     * to a channel that is not a file is done with small buffers.
      *
      * <pre>
      *  try (FileInputStream in = new FileInputStream(file);
@@ -136,19 +200,31 @@ public final class Helper {
      *  }
      * </pre>
      *
-     * @param storage  instance of storage
      * @param blobInfo information of the blob
      * @param file     file to be uploaded
+     * @return checksum of the file
      */
-    private static void uploadToStorage(Storage storage, BlobInfo blobInfo, File file) throws IOException {
+    private Checksum uploadToStorage(BlobInfo blobInfo, File file) throws IOException {
         Path path = file.toPath();
+        long length = file.length();
 
         // For a small file.
-        if (file.length() < BIG_FILE_THRESHOLD) {
+        if (length < BIG_FILE_THRESHOLD) {
             byte[] bytes = Files.readAllBytes(path);
-            storage.create(blobInfo, bytes);
+            return createBlob(blobInfo, bytes);
+        }
+
+        // For a big file that can be split into slices.
+        if (options.isParallelCompositeUpload()) {
+            CompositeUploader uploader = new CompositeUploader(storage, options, bufferPool);
+            if (uploader.countSlices(length) > 1) {
+                return Checksum.of(uploader.upload(blobInfo, path, length));
+            }
+        }
 
-            return;
+        // For a big file that can be resumed after the process dies.
+        if (options.getUploadJournalDirectory() != null) {
+            return new ResumableUploader(storage, options, bufferPool).upload(blobInfo, path, length);
         }
 
         /*
@@ -156,37 +232,155 @@ public final class Helper {
          * When content is not available or large(1MB or more),
          * it is recommended to write it in chunks via the blob's channel writer.
          */
-        byte[] buffer = new byte[16_384];
-        try (InputStream in = Files.newInputStream(path);
-             WriteChannel writableChannel = storage.writer(blobInfo)) {
-            int limit;
-            while ((limit = in.read(buffer)) >= 0) {
-                writableChannel.write(ByteBuffer.wrap(buffer, 0, limit));
-            }
+        ChecksumCalculator calculator = new ChecksumCalculator(options.isMd5Enabled());
+        BlobInfo stagingInfo = StagedUpload.stagingOf(blobInfo, UUID.randomUUID().toString());
+        ByteBuffer buffer = bufferPool.acquire();
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            WriteChannel writableChannel = storage.writer(stagingInfo);
+            writableChannel.setChunkSize(bufferPool.getBufferSize());
+
+            Transfer.copy(in, 0, length, writableChannel, buffer, calculator);
+            writableChannel.close();
+        } finally {
+            bufferPool.release(buffer);
         }
+
+        return StagedUpload.complete(storage, stagingInfo, blobInfo, calculator.toChecksum());
     }
 
-    private static void uploadToStorage(Storage storage, BlobInfo blobInfo, byte[] content) throws IOException {
+    /**
+     * Uploads the remaining bytes of a buffer to storage.
+     *
+     * <p> When the length is less than 1MB, pass the bytes on instance of storage to create a blob.
+     * The bytes are copied only if they are not a whole array.
+     *
+     * <p> When the length is greater than or equal to 1MB, pass slices of the buffer
+     * as large as {@link HelperOptions#getUploadChunkSize()} on {@link WriteChannel}
+     * without copying them. The channel would grow its own buffer to the length
+     * if the whole buffer is passed at once.
+     *
+     * <p> As the content is already in memory, its checksum is computed before the upload
+     * and sent with the blob information, so that server rejects the blob if they don't match.
+     *
+     * @param blobInfo information of the blob
+     * @param content  content to be uploaded, whose position is not changed
+     * @return checksum of the content
+     */
+    private Checksum uploadToStorage(BlobInfo blobInfo, ByteBuffer content) throws IOException {
         // For a small file.
-        if (content.length < BIG_FILE_THRESHOLD) {
-            storage.create(blobInfo, content);
-
-            return;
+        if (content.remaining() < BIG_FILE_THRESHOLD) {
+            return createBlob(blobInfo, toByteArray(content));
         }
 
+        ChecksumCalculator calculator = new ChecksumCalculator(options.isMd5Enabled());
+        calculator.update(content);
+        Checksum checksum = calculator.toChecksum();
+
         /*
          * For a big file.
          * When content is not available or large(1MB or more),
          * it is recommended to write it in chunks via the blob's channel writer.
          */
-        byte[] buffer = new byte[16_384];
-        try (InputStream in = new ByteArrayInputStream(content);
-             WriteChannel writableChannel = storage.writer(blobInfo)) {
-            int limit;
-            while ((limit = in.read(buffer)) >= 0) {
-                writableChannel.write(ByteBuffer.wrap(buffer, 0, limit));
+        BlobInfo checkedBlobInfo = blobInfo.toBuilder()
+                .setCrc32c(checksum.getCrc32c())
+                .setMd5(checksum.getMd5())
+                .build();
+        WriteChannel writableChannel = checksum.getMd5() == null
+                ? storage.writer(checkedBlobInfo, BlobWriteOption.crc32cMatch())
+                : storage.writer(checkedBlobInfo, BlobWriteOption.crc32cMatch(), BlobWriteOption.md5Match());
+        writableChannel.setChunkSize(options.getUploadChunkSize());
+
+        ByteBuffer slice = content.duplicate();
+        int end = slice.limit();
+        while (slice.position() < end) {
+            slice.limit(Math.min(slice.position() + options.getUploadChunkSize(), end));
+            Transfer.writeFully(writableChannel, slice);
+        }
+        writableChannel.close();
+
+        return checksum;
+    }
+
+    /**
+     * Uploads all the bytes of a channel to storage.
+     *
+     * <p> Reads the channel into a pooled buffer first. When the channel reaches its end
+     * within the buffer and the length is less than 1MB, pass the bytes on instance of storage
+     * to create a blob. Otherwise, pass the buffer on {@link WriteChannel} whenever it is filled,
+     * so that memory for the upload never exceeds a buffer however long the channel is.
+     * Checksum of the buffer is computed before it is passed on the channel,
+     * and compared with the one computed by server after the upload.
+     * The channel is written as a staging blob and rewritten into the blob only after they match.
+     *
+     * @param blobInfo information of the blob
+     * @param in       blocking channel to be uploaded, which is not closed
+     * @return checksum of the content
+     */
+    private Checksum uploadToStorage(BlobInfo blobInfo, ReadableByteChannel in) throws IOException {
+        ChecksumCalculator calculator = new ChecksumCalculator(options.isMd5Enabled());
+        BlobInfo stagingInfo = StagedUpload.stagingOf(blobInfo, UUID.randomUUID().toString());
+        ByteBuffer buffer = bufferPool.acquire();
+
+        try {
+            boolean endOfStream = Transfer.fill(in, buffer);
+
+            // For a small file.
+            if (endOfStream && buffer.remaining() < BIG_FILE_THRESHOLD) {
+                return createBlob(blobInfo, toByteArray(buffer));
+            }
+
+            // For a big file or a file whose length is unknown yet.
+            WriteChannel writableChannel = storage.writer(stagingInfo);
+            writableChannel.setChunkSize(bufferPool.getBufferSize());
+
+            calculator.update(buffer);
+            Transfer.writeFully(writableChannel, buffer);
+            while (!endOfStream) {
+                endOfStream = Transfer.fill(in, buffer);
+                calculator.update(buffer);
+                Transfer.writeFully(writableChannel, buffer);
             }
+            writableChannel.close();
+        } finally {
+            bufferPool.release(buffer);
         }
+
+        return StagedUpload.complete(storage, stagingInfo, blobInfo, calculator.toChecksum());
+    }
+
+    /**
+     * Creates a blob with the bytes at once. The client computes their checksum
+     * and sends it with the bytes, so that server rejects the blob if they don't match.
+     *
+     * @param blobInfo information of the blob
+     * @param bytes    content of the blob
+     * @return checksum that server has accepted
+     */
+    private Checksum createBlob(BlobInfo blobInfo, byte[] bytes) {
+        return Checksum.of(storage.create(blobInfo, bytes));
+    }
+
+    private static byte[] toByteArray(ByteBuffer buffer) {
+        if (buffer.hasArray() && buffer.arrayOffset() + buffer.position() == 0
+                && buffer.remaining() == buffer.array().length) {
+            return buffer.array();
+        }
+
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+
+        return bytes;
+    }
+
+    private static BlobInfo toBlobInfo(BlobId blobId, @Nullable String mimeType) {
+        Map<String, String> meta = new HashMap<>();
+        meta.put(TOKEN_KEY, UUID.randomUUID().toString());
+
+        String contentType = StringUtils.ifNullOrBlank(mimeType, "application/octet-stream");
+        return BlobInfo.newBuilder(blobId)
+                .setContentType(contentType)
+                .setMetadata(meta)
+                .build();
     }
 
     /**
@@ -309,10 +503,91 @@ public final class Helper {
      * @throws NoSuchBlobException if the blob doesn't exist
      */
     public Blob getBlob(@NonNull String blobName) {
+        return getBlob(blobName, false);
+    }
+
+    /**
+     * Returns the blob, asking again whether its generation still exists if required.
+     *
+     * <p> A single request settles the existence of the blob, so the recheck
+     * is only for the callers who can't trust the blob until they use it.
+     * It also bypasses {@link HelperOptions#getMetadataCacheMaxSize() the metadata cache}.
+     *
+     * @param blobName name of the blob
+     * @param recheck  whether to ask again whether the blob exists
+     * @return blob
+     * @throws NoSuchBlobException if the blob doesn't exist
+     */
+    public Blob getBlob(@NonNull String blobName, boolean recheck) {
         BlobId blobId = BlobId.of(bucketName, blobName);
+
+        // Recheck doesn't trust the cache.
+        if (metadataCache != null && !recheck) {
+            Blob blob = metadataCache.get(blobId);
+            if (blob != null) return blob;
+            if (metadataCache.isMissing(blobId)) return checkExistence(null, blobId, false);
+        }
+
+        // Taken before the request, not to cache the blob invalidated while it is being got.
+        long version = metadataCache == null ? 0 : metadataCache.version(blobId);
         Blob blob = storage.get(blobId);
+        if (metadataCache != null) metadataCache.put(blobId, version, blob);
 
-        return checkExistence(blob, blobId);
+        return checkExistence(blob, blobId, recheck);
+    }
+
+    /**
+     * Returns the blobs of the names at once.
+     *
+     * <p> The names are requested as batches of {@value #MAX_BATCH_SIZE}, which is the most
+     * that a batch request accepts. A blob that doesn't exist doesn't fail the others,
+     * but is returned in {@link BlobBatchResult#getMissingNames()}.
+     *
+     * <pre>
+     * List&lt;String&gt; blobNames = Arrays.asList("goods/1.jpeg", "goods/2.jpeg", "goods/3.jpeg");
+     * BlobBatchResult result = getBlobs(blobNames);
+     *
+     * result.getBlobs() // {"goods/1.jpeg": Blob(name="goods/1.jpeg"), "goods/3.jpeg": Blob(name="goods/3.jpeg")}
+     * result.getMissingNames() // ["goods/2.jpeg"]
+     * </pre>
+     *
+     * @param blobNames names of the blobs
+     * @return blobs found and names of the blobs not found
+     */
+    public BlobBatchResult getBlobs(@NonNull Collection<String> blobNames) {
+        Map<String, Blob> blobs = new LinkedHashMap<>();
+        Map<String, StorageException> errors = new LinkedHashMap<>();
+        List<String> missingNames = new ArrayList<>();
+
+        for (List<String> names : Iterables.partition(new LinkedHashSet<>(blobNames), MAX_BATCH_SIZE)) {
+            StorageBatch batch = storage.batch();
+            for (String name : names) {
+                batch.get(BlobId.of(bucketName, name)).notify(new BatchResult.Callback<Blob, StorageException>() {
+                    @Override
+                    public void success(Blob blob) {
+                        if (blob == null) {
+                            missingNames.add(name);
+                        } else {
+                            blobs.put(name, blob);
+                        }
+                    }
+
+                    @Override
+                    public void error(StorageException e) {
+                        if (e.getCode() == 404) {
+                            missingNames.add(name);
+                        } else {
+                            errors.put(name, e);
+                        }
+                    }
+                });
+            }
+
+            batch.submit();
+        }
+
+        return new BlobBatchResult(Collections.unmodifiableMap(blobs),
+                Collections.unmodifiableList(missingNames), Collections.unmodifiableMap(errors));
     }
 
     /**
@@ -340,12 +615,28 @@ public final class Helper {
      * @return names of selected blobs
      */
     public List<String> getBlobNames(String blobName, @NonNull SearchPolicy policy) {
-        List<Blob> blobs = getBlobs(blobName);
+        if (listingCache != null) {
+            return getCachedBlobs(blobName, policy).stream().map(Blob::getName).collect(toList());
+        }
 
-        return blobs.stream().filter(policy.getCondition())
-                .filter(it -> !it.getName().equals(blobName)) // Except itself.
-                .map(Blob::getName)
-                .collect(toList());
+        return getBlobNames(blobName, policy, ListingOptions.defaults());
+    }
+
+    /**
+     * Return names of blobs selected with the specific way and listing options.
+     *
+     * <p> If {@link ListingOptions#getFields()} is null, only names of the blobs are fetched.
+     *
+     * @param blobName       name of blob
+     * @param policy         how to select blobs
+     * @param listingOptions options for listing
+     * @return names of selected blobs
+     */
+    public List<String> getBlobNames(String blobName, @NonNull SearchPolicy policy,
+                                     @NonNull ListingOptions listingOptions) {
+        if (listingOptions.getFields() == null) listingOptions = listingOptions.toBuilder().fields().build();
+
+        return streamBlobs(blobName, policy, listingOptions).map(Blob::getName).collect(toList());
     }
 
     /**
@@ -373,11 +664,100 @@ public final class Helper {
      * @return selected blobs
      */
     public List<Blob> getBlobs(String blobName, @NonNull SearchPolicy policy) {
-        List<Blob> blobs = getBlobs(blobName);
+        if (listingCache != null) return getCachedBlobs(blobName, policy);
+
+        return getBlobs(blobName, policy, ListingOptions.defaults());
+    }
+
+    /**
+     * Selects blobs with the specific way and listing options.
+     *
+     * @param blobName       name of blob
+     * @param policy         how to select blobs
+     * @param listingOptions options for listing
+     * @return selected blobs
+     */
+    public List<Blob> getBlobs(String blobName, @NonNull SearchPolicy policy, @NonNull ListingOptions listingOptions) {
+        return streamBlobs(blobName, policy, listingOptions).collect(toList());
+    }
+
+    /**
+     * Returns a lazy stream of blobs selected with the specific way.
+     *
+     * <p> Unlike {@link #getBlobs(String, SearchPolicy)}, the blobs are not loaded
+     * into memory at once. A page of them is fetched only when the stream needs it,
+     * and no more page is fetched after the stream is short-circuited.
+     * With {@link HelperOptions#getListingPrefetchDepth()}, the following pages are fetched
+     * in background while a page is consumed, which are cancelled when the stream is closed.
+     *
+     * <pre>
+     * try (Stream&lt;Blob&gt; blobs = streamBlobs("lifecycle-images/", SearchPolicy.FILES)) {
+     *     blobs.filter(it -&gt; it.getSize() &gt; 0).limit(100).forEach(this::process);
+     * }
+     * </pre>
+     *
+     * @param blobName name of blob
+     * @param policy   how to select blobs
+     * @return stream of selected blobs
+     */
+    public Stream<Blob> streamBlobs(String blobName, @NonNull SearchPolicy policy) {
+        return streamBlobs(blobName, policy, ListingOptions.defaults());
+    }
+
+    /**
+     * Returns a lazy stream of blobs selected with the specific way and listing options.
+     *
+     * @param blobName       name of blob
+     * @param policy         how to select blobs
+     * @param listingOptions options for listing
+     * @return stream of selected blobs
+     * @see #streamBlobs(String, SearchPolicy)
+     */
+    public Stream<Blob> streamBlobs(String blobName, @NonNull SearchPolicy policy,
+                                    @NonNull ListingOptions listingOptions) {
+        listingOptions.validate();
+
+        BlobListOption[] blobListOptions = listingOptions.toBlobListOptions(blobName).toArray(new BlobListOption[0]);
+        BlobIterator iterator = new BlobIterator(storage, bucketName, options.getListingPrefetchDepth(),
+                listingOptions.getEndOffset(), blobListOptions);
+        Spliterator<Blob> spliterator = Spliterators.spliteratorUnknownSize(iterator,
+                Spliterator.ORDERED | Spliterator.NONNULL);
+
+        Stream<Blob> blobs = StreamSupport.stream(spliterator, false)
+                .onClose(iterator::close)
+                .filter(it -> listingOptions.contains(it.getName()))
+                .filter(policy.getCondition())
+                .filter(it -> !it.getName().equals(blobName)); // Except itself.
+        if (options.isRevalidateListedBlobs()) blobs = blobs.filter(it -> it.isDirectory() || it.exists());
+
+        return blobs;
+    }
+
+    /**
+     * Selects blobs from the last listing of the prefix in {@link ListingCache}.
+     * All blobs of the prefix are cached, so that any policy can be served from them.
+     *
+     * @param blobName name of blob
+     * @param policy   how to select blobs
+     * @return selected blobs
+     */
+    private List<Blob> getCachedBlobs(String blobName, SearchPolicy policy) {
+        List<Blob> blobs = listingCache.get(blobName, prefix -> getBlobs(prefix, SearchPolicy.ALL,
+                ListingOptions.defaults()));
 
-        return blobs.stream().filter(policy.getCondition())
-                .filter(it -> !it.getName().equals(blobName)) // Except itself.
-                .collect(toList());
+        return blobs.stream().filter(policy.getCondition()).collect(toList());
+    }
+
+    /**
+     * Returns a lazy iterator of blobs selected with the specific way.
+     *
+     * @param blobName name of blob
+     * @param policy   how to select blobs
+     * @return iterator of selected blobs
+     * @see #streamBlobs(String, SearchPolicy)
+     */
+    public Iterator<Blob> iterateBlobs(String blobName, @NonNull SearchPolicy policy) {
+        return streamBlobs(blobName, policy).iterator();
     }
 
     /**
@@ -404,28 +784,112 @@ public final class Helper {
      * getLastBlob(blobName, false) // Blob(name="life-cycles/20210129/homeplus.zip")
      * </pre>
      *
+     * <p> Only names are listed at each level and the last one is kept as they arrive,
+     * so it descends into a single directory per level without sorting them.
+     * The metadata is fetched only for the last blob found.
+     *
+     * <p> Server lists the names in lexicographic order. So once the last blob of the preferred kind
+     * has been found in a page, no blob of that kind in the pages before can be the last,
+     * and the token of the page is kept as a high-water mark of the directory.
+     * The next call lists the directory from that page instead of the first. If nothing of
+     * the preferred kind is found from there, for example when it has been deleted,
+     * the whole directory is listed again.
+     *
      * @param blobName    name of the blob
      * @param priorToFile Whether to choose a file first
      * @return the last blob
      */
     @Nullable
     public Blob getLastBlob(String blobName, boolean priorToFile) {
-        List<Blob> blobs = getBlobs(blobName, SearchPolicy.ALL);
-        if (CollectionUtils.isNullOrEmpty(blobs)) return null;
+        return getLastBlob(blobName, priorToFile, ListingOptions.defaults());
+    }
 
-        sortByDirectory(blobs, priorToFile);
-        Blob blob = blobs.get(blobs.size() - 1);
+    /**
+     * Returns the last blob with listing options, which are applied to every level of the directories.
+     *
+     * @param blobName       name of the blob
+     * @param priorToFile    Whether to choose a file first
+     * @param listingOptions options for listing
+     * @return the last blob
+     * @see #getLastBlob(String, boolean)
+     */
+    @Nullable
+    public Blob getLastBlob(String blobName, boolean priorToFile, @NonNull ListingOptions listingOptions) {
+        listingOptions.validate();
+        ListingOptions namesOnly = listingOptions.toBuilder().fields().build();
+
+        String name = blobName;
+        while (true) {
+            Blob last = findLastChild(name, priorToFile, namesOnly);
+            if (last == null) return null;
+
+            if (!last.isDirectory()) {
+                // Fetches the metadata which has been left out of the listing.
+                BlobId blobId = BlobId.of(bucketName, last.getName());
+                Set<BlobField> fields = listingOptions.getFields();
+
+                // Returns null if it has been deleted since listed.
+                return fields == null
+                        ? storage.get(blobId)
+                        : storage.get(blobId, BlobGetOption.fields(fields.toArray(new BlobField[0])));
+            }
 
-        if (blob.isDirectory()) {
-            blob = getLastBlob(blob.getName(), priorToFile);
+            name = last.getName();
         }
+    }
 
-        return blob == null || !blob.exists() ? null : blob;
+    /**
+     * Finds the last blob right under the directory, listing from its high-water mark if kept.
+     */
+    @Nullable
+    private Blob findLastChild(String name, boolean priorToFile, ListingOptions namesOnly) {
+        String pageToken = lastPageTokens.getIfPresent(name);
+        if (pageToken != null) {
+            try {
+                Blob last = listLastChild(name, priorToFile, namesOnly, pageToken);
+                if (last != null && isPreferred(last, priorToFile)) return last;
+            } catch (StorageException e) {
+                // The token is no longer accepted by server.
+                if (e.getCode() != 400) throw e;
+            }
+        }
+
+        return listLastChild(name, priorToFile, namesOnly, null);
+    }
+
+    @Nullable
+    private Blob listLastChild(String name, boolean priorToFile, ListingOptions namesOnly,
+                               @Nullable String pageToken) {
+        List<BlobListOption> blobListOptions = namesOnly.toBlobListOptions(name);
+        if (pageToken != null) blobListOptions.add(BlobListOption.pageToken(pageToken));
+
+        Comparator<Blob> comparator = orderByDirectory(priorToFile);
+        Blob last = null;
+        String lastPageToken = null;
+        try (BlobIterator iterator = new BlobIterator(storage, bucketName, options.getListingPrefetchDepth(),
+                namesOnly.getEndOffset(), blobListOptions.toArray(new BlobListOption[0]))) {
+            while (iterator.hasNext()) {
+                Blob blob = iterator.next();
+                if (!namesOnly.contains(blob.getName()) || blob.getName().equals(name)) continue;
+                if (last != null && comparator.compare(blob, last) <= 0) continue;
+                if (options.isRevalidateListedBlobs() && !blob.isDirectory() && !blob.exists()) continue;
+
+                last = blob;
+                lastPageToken = iterator.getPageToken() == null ? pageToken : iterator.getPageToken();
+            }
+        }
+
+        if (last != null && isPreferred(last, priorToFile) && lastPageToken != null) {
+            lastPageTokens.put(name, lastPageToken);
+        } else {
+            lastPageTokens.invalidate(name);
+        }
+
+        return last;
     }
 
-    private List<Blob> getBlobs(String blobName) {
-        Page<Blob> blobPage = storage.list(bucketName, BlobListOption.currentDirectory(), BlobListOption.prefix(blobName));
-        return Lists.newArrayList(blobPage.iterateAll()).stream().filter(Objects::nonNull).collect(toList());
+    private static boolean isPreferred(Blob blob, boolean priorToFile) {
+        return blob.isDirectory() != priorToFile;
     }
 
     /////////////////////////////////// Downloaders ///////////////////////////////////
@@ -446,13 +910,16 @@ public final class Helper {
      * @throws NoSuchBlobException if the blob doesn't exist
      */
     public File download(String blobName, Path dest) {
-        Blob blob = getBlob(blobName);
-        return download(blob, dest, null);
+        return download(blobName, dest, null);
     }
 
     /**
      * Downloads the blob and returns a file of the blob.
      *
+     * <p> When {@link HelperOptions#getDownloadCacheDirectory()} is set and the blob
+     * has been cached within {@link HelperOptions#getDownloadCacheTtl()},
+     * serves it from the cache without any request to server.
+     *
      * <pre>
      * Path dest = Paths.get("/data", "product", "images");
      * String blobName = "goods/5bf62022ff2e9e001090fba9/5bf62022ff2e9e001090fba9_label1";
@@ -467,7 +934,13 @@ public final class Helper {
      * @return file of the blob
      * @throws NoSuchBlobException if the blob doesn't exist
      */
+    @SneakyThrows
     public File download(String blobName, Path dest, @Nullable String newFilename) {
+        if (downloadCache != null) {
+            Path path = toDownloadPath(blobName, dest, newFilename);
+            if (downloadCache.copyIfFresh(bucketName, blobName, path)) return path.toFile();
+        }
+
         Blob blob = getBlob(blobName);
         return download(blob, dest, newFilename);
     }
@@ -493,6 +966,20 @@ public final class Helper {
     /**
      * Downloads the blob and returns a file of the blob.
      *
+     * <p> The blob is written into a temporary file next to the file, which is renamed
+     * to the file only when it is complete. If the download fails partway through,
+     * the next download of the same generation continues from the bytes received.
+     * If the blob has been changed meanwhile, throws {@link StorageException}
+     * with code 412 and discards the bytes received.
+     *
+     * <p> When {@link HelperOptions#isParallelSlicedDownload()} is enabled and the blob
+     * can be split into two or more byte ranges, downloads the ranges at the same time
+     * and writes them at their offsets of the file.
+     *
+     * <p> When {@link HelperOptions#getDownloadCacheDirectory()} is set, serves the blob
+     * from the cache if its generation is cached, otherwise downloads it into the cache
+     * and serves it from there.
+     *
      * <pre>
      * Path dest = Paths.get("/data", "product", "images");
      * Blob blob = getBlob("goods/5bf62022ff2e9e001090fba9/5bf62022ff2e9e001090fba9_label1");
@@ -501,22 +988,167 @@ public final class Helper {
      * download(blob, dest, newFilename) // File(path="/data/product/images/product_image.jpeg")
      * </pre>
      *
-     * @param blob        blob
+     * @param blob        blob, which is got again if listed without generation or size
      * @param dest        destination
      * @param newFilename name of the downloaded file
      * @return file of the blob
+     * @throws NoSuchBlobException if the blob has to be got again but doesn't exist
      */
     @SneakyThrows
     public File download(Blob blob, Path dest, @Nullable String newFilename) {
+        if (blob.getGeneration() == null || blob.getSize() == null) {
+            // A blob listed with only some fields doesn't have what is needed to download it.
+            blob = checkExistence(storage.get(blob.getBlobId()), blob.getBlobId(), false);
+        }
+
+        Path path = toDownloadPath(blob.getName(), dest, newFilename);
+
+        FileDownloader downloader = new FileDownloader(options, bufferPool);
+        if (downloadCache == null) {
+            downloader.download(blob, path);
+        } else {
+            downloadCache.copy(blob, path, downloader::download);
+        }
+
+        return path.toFile();
+    }
+
+    private static Path toDownloadPath(String blobName, Path dest, @Nullable String newFilename) throws IOException {
         // 새로운 파일명을 지정하지 않은 경우
-        if (StringUtils.isNullOrBlank(newFilename)) newFilename = toSimpleName(blob.getName());
+        if (StringUtils.isNullOrBlank(newFilename)) newFilename = toSimpleName(blobName);
 
         if (Files.notExists(dest)) Files.createDirectories(dest);
 
-        Path path = Paths.get(dest.toString(), newFilename);
-        blob.downloadTo(path);
+        return Paths.get(dest.toString(), newFilename);
+    }
 
-        return path.toFile();
+    /**
+     * Reads all the bytes of the blob into memory.
+     *
+     * <p> The array is allocated once as large as the blob,
+     * and filled a chunk at a time as large as {@link HelperOptions#getReadChunkSize()}.
+     *
+     * <pre>
+     * String blobName = "thumbnails/5bf62022ff2e9e001090fba9/5bf62022ff2e9e001090fba9_label1";
+     *
+     * readAllBytes(blobName) // [-1, -40, -1, -32, 0, 16, 74, 70, ...]
+     * </pre>
+     *
+     * @param blobName name of the blob
+     * @return content of the blob
+     * @throws NoSuchBlobException      if the blob doesn't exist
+     * @throws IllegalArgumentException if the blob is too large for an array
+     */
+    public byte[] readAllBytes(String blobName) {
+        Blob blob = getBlob(blobName);
+        long size = blob.getSize();
+        Asserts.that(size)
+                .describedAs("Blob is too large to be read into an array: {0} bytes", size)
+                .isLessThanOrEqualTo((long) Integer.MAX_VALUE - 8);
+
+        byte[] bytes = new byte[(int) size];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+
+        try (ReadChannel readChannel = openReadChannel(blob)) {
+            while (buffer.hasRemaining()) {
+                // Channel fetches as many bytes as the buffer can hold at once, so limits it to a chunk.
+                buffer.limit(Math.min(buffer.position() + options.getReadChunkSize(), bytes.length));
+                if (readChannel.read(buffer) < 0) throw new EOFException("Blob has ended before its size: " + size);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        return bytes;
+    }
+
+    /**
+     * Reads all the bytes of the blob into the stream, which is not closed.
+     *
+     * <pre>
+     * String blobName = "thumbnails/5bf62022ff2e9e001090fba9/5bf62022ff2e9e001090fba9_label1";
+     *
+     * read(blobName, response.getOutputStream()) // 20480
+     * </pre>
+     *
+     * @param blobName name of the blob
+     * @param out      destination
+     * @return number of bytes read
+     * @throws NoSuchBlobException if the blob doesn't exist
+     */
+    public long read(String blobName, OutputStream out) {
+        return read(blobName, Channels.newChannel(out));
+    }
+
+    /**
+     * Reads all the bytes of the blob into the channel, which is not closed.
+     *
+     * <p> The bytes pass through a pooled buffer, so that memory for the read
+     * never exceeds a buffer and a chunk however large the blob is.
+     *
+     * <pre>
+     * String blobName = "thumbnails/5bf62022ff2e9e001090fba9/5bf62022ff2e9e001090fba9_label1";
+     *
+     * read(blobName, socketChannel) // 20480
+     * </pre>
+     *
+     * @param blobName name of the blob
+     * @param out      destination
+     * @return number of bytes read
+     * @throws NoSuchBlobException if the blob doesn't exist
+     */
+    public long read(String blobName, WritableByteChannel out) {
+        Blob blob = getBlob(blobName);
+
+        try (ReadChannel readChannel = openReadChannel(blob)) {
+            ByteBuffer buffer = bufferPool.acquire();
+
+            try {
+                long count = 0;
+                boolean endOfStream = false;
+                while (!endOfStream) {
+                    endOfStream = Transfer.fill(readChannel, buffer);
+                    count += buffer.remaining();
+                    Transfer.writeFully(out, buffer);
+                }
+
+                return count;
+            } finally {
+                bufferPool.release(buffer);
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Opens a stream to read the blob. The caller must close it.
+     *
+     * <p> The stream fetches a chunk as large as {@link HelperOptions#getReadChunkSize()}
+     * at a time, and every chunk is read from the same generation of the blob.
+     *
+     * <pre>
+     * String blobName = "user_data/db_list/db_list_20210101.csv";
+     *
+     * try (InputStream in = openStream(blobName)) {
+     *     parser.parse(in);
+     * }
+     * </pre>
+     *
+     * @param blobName name of the blob
+     * @return stream of the blob
+     * @throws NoSuchBlobException if the blob doesn't exist
+     */
+    public InputStream openStream(String blobName) {
+        Blob blob = getBlob(blobName);
+        return Channels.newInputStream(openReadChannel(blob));
+    }
+
+    private ReadChannel openReadChannel(Blob blob) {
+        ReadChannel readChannel = blob.reader(Blob.BlobSourceOption.generationMatch());
+        readChannel.setChunkSize(options.getReadChunkSize());
+
+        return readChannel;
     }
 
     /////////////////////////////////// Uploaders ///////////////////////////////////
@@ -536,9 +1168,10 @@ public final class Helper {
      *
      * @param blobId id of the blob
      * @param file   file to be uploaded
+     * @return checksum of the content
      */
-    public void upload(BlobId blobId, File file) {
-        upload(blobId, file, MimeTypeUtils.getMimeType(file));
+    public Checksum upload(BlobId blobId, File file) {
+        return upload(blobId, file, MimeTypeUtils.getMimeType(file));
     }
 
     /**
@@ -559,21 +1192,17 @@ public final class Helper {
      * @param blobId   id of the blob
      * @param file     file to be uploaded
      * @param mimeType MIME-Type of the file
+     * @return checksum of the content
      */
-    public void upload(BlobId blobId, File file, @Nullable String mimeType) {
-        Map<String, String> meta = new HashMap<>();
-        meta.put(TOKEN_KEY, UUID.randomUUID().toString());
-
-        String contentType = StringUtils.ifNullOrBlank(mimeType, "application/octet-stream");
-        BlobInfo blobInfo = BlobInfo.newBuilder(blobId)
-                .setContentType(contentType)
-                .setMetadata(meta)
-                .build();
+    public Checksum upload(BlobId blobId, File file, @Nullable String mimeType) {
+        BlobInfo blobInfo = toBlobInfo(blobId, mimeType);
 
         try {
-            uploadToStorage(storage, blobInfo, file);
+            return uploadToStorage(blobInfo, file);
         } catch (IOException e) {
             throw new RuntimeException(e);
+        } finally {
+            invalidate(blobId);
         }
     }
 
@@ -595,9 +1224,10 @@ public final class Helper {
      *
      * @param blobId  id of the blob
      * @param content file content
+     * @return checksum of the content
      */
-    public void upload(BlobId blobId, byte[] content) {
-        upload(blobId, content, null);
+    public Checksum upload(BlobId blobId, byte[] content) {
+        return upload(blobId, content, null);
     }
 
     /**
@@ -621,21 +1251,133 @@ public final class Helper {
      * @param blobId   id of the blob
      * @param content  file content
      * @param mimeType MIME-Type of the file
+     * @return checksum of the content
      */
-    public void upload(BlobId blobId, byte[] content, @Nullable String mimeType) {
-        Map<String, String> meta = new HashMap<>();
-        meta.put(TOKEN_KEY, UUID.randomUUID().toString());
+    public Checksum upload(BlobId blobId, byte[] content, @Nullable String mimeType) {
+        BlobInfo blobInfo = toBlobInfo(blobId, mimeType);
 
-        String contentType = StringUtils.ifNullOrBlank(mimeType, "application/octet-stream");
-        BlobInfo blobInfo = BlobInfo.newBuilder(blobId)
-                .setContentType(contentType)
-                .setMetadata(meta)
-                .build();
+        try {
+            return uploadToStorage(blobInfo, ByteBuffer.wrap(content));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            invalidate(blobId);
+        }
+    }
+
+    /**
+     * Uploads the remaining bytes of a buffer to storage.
+     * The buffer can be either direct or not, and its position is not changed.
+     *
+     * <pre><code>
+     * String bucketName = "steady-copilot-206205.appspot.com";
+     * String blobName = "reports/20210101/daily-report.csv";
+     * BlobId blobId = BlobId.of(bucketName, blobName);
+     *
+     * ByteBuffer content = reportGenerator.generate();
+     *
+     * upload(blobId, content);
+     * </code></pre>
+     *
+     * @param blobId  id of the blob
+     * @param content file content
+     * @return checksum of the content
+     */
+    public Checksum upload(BlobId blobId, ByteBuffer content) {
+        return upload(blobId, content, null);
+    }
+
+    /**
+     * Uploads the remaining bytes of a buffer to storage with the specific MIME-Type.
+     * If MIME-Type is empty, sets 'application/octet-stream'.
+     * The buffer can be either direct or not, and its position is not changed.
+     *
+     * <pre><code>
+     * String bucketName = "steady-copilot-206205.appspot.com";
+     * String blobName = "reports/20210101/daily-report.csv";
+     * BlobId blobId = BlobId.of(bucketName, blobName);
+     *
+     * ByteBuffer content = reportGenerator.generate();
+     * String mimeType = "text/csv";
+     *
+     * upload(blobId, content, mimeType);
+     * </code></pre>
+     *
+     * @param blobId   id of the blob
+     * @param content  file content
+     * @param mimeType MIME-Type of the file
+     * @return checksum of the content
+     */
+    public Checksum upload(BlobId blobId, ByteBuffer content, @Nullable String mimeType) {
+        BlobInfo blobInfo = toBlobInfo(blobId, mimeType);
 
         try {
-            uploadToStorage(storage, blobInfo, content);
+            return uploadToStorage(blobInfo, content);
         } catch (IOException e) {
             throw new RuntimeException(e);
+        } finally {
+            invalidate(blobId);
+        }
+    }
+
+    /**
+     * Uploads all the bytes of a stream to storage with the specific MIME-Type.
+     * If MIME-Type is empty, sets 'application/octet-stream'.
+     *
+     * <p> The stream is uploaded as it is read, without being buffered
+     * on memory or spilled to disk entirely. It is not closed after the upload.
+     *
+     * <pre><code>
+     * String bucketName = "steady-copilot-206205.appspot.com";
+     * String blobName = "user_data/db_list/db_list_20210101.csv";
+     * BlobId blobId = BlobId.of(bucketName, blobName);
+     *
+     * try (InputStream in = request.getInputStream()) {
+     *     upload(blobId, in, "text/csv");
+     * }
+     * </code></pre>
+     *
+     * @param blobId   id of the blob
+     * @param in       stream to be uploaded
+     * @param mimeType MIME-Type of the file
+     * @return checksum of the content
+     */
+    public Checksum upload(BlobId blobId, InputStream in, @Nullable String mimeType) {
+        return upload(blobId, Channels.newChannel(in), mimeType);
+    }
+
+    /**
+     * Uploads all the bytes of a channel to storage with the specific MIME-Type.
+     * If MIME-Type is empty, sets 'application/octet-stream'.
+     *
+     * <p> The channel is uploaded as it is read, without being buffered
+     * on memory or spilled to disk entirely. It must be blocking
+     * and is not closed after the upload.
+     *
+     * <pre><code>
+     * String bucketName = "steady-copilot-206205.appspot.com";
+     * String blobName = "lifecycle-images/20210101/emart.zip";
+     * BlobId blobId = BlobId.of(bucketName, blobName);
+     *
+     * try (ReadableByteChannel in = archiver.open()) {
+     *     upload(blobId, in, "application/zip");
+     * }
+     * </code></pre>
+     *
+     * @param blobId   id of the blob
+     * @param in       channel to be uploaded
+     * @param mimeType MIME-Type of the file
+     * @return checksum of the content
+     */
+    public Checksum upload(BlobId blobId, ReadableByteChannel in, @Nullable String mimeType) {
+        BlobInfo blobInfo = toBlobInfo(blobId, mimeType);
+
+        try {
+            return uploadToStorage(blobInfo, in);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            invalidate(blobId);
         }
     }
 
@@ -662,6 +1404,21 @@ public final class Helper {
         return move(blob, newBlobName);
     }
 
+    /**
+     * Moves the blob to the specific place, notifying the listener of the progress.
+     *
+     * @param blobName    old name of the blob
+     * @param newBlobName new name of the blob
+     * @param listener    listener of the progress
+     * @return moved blob
+     * @throws NoSuchBlobException if the blob doesn't exist
+     * @see #move(Blob, String, CopyProgressListener)
+     */
+    public Blob move(@NonNull String blobName, String newBlobName, @NonNull CopyProgressListener listener) {
+        Blob blob = getBlob(blobName);
+        return move(blob, newBlobName, listener);
+    }
+
     /**
      * Moves the blob to the specific place.
      * Returns name of the moved blob, if failed to move, returns null.
@@ -679,11 +1436,40 @@ public final class Helper {
      * @return new name of the blob or null
      */
     public Blob move(Blob blob, String newBlobName) {
-        CopyWriter copyWriter = blob.copyTo(BlobId.of(bucketName, newBlobName));
-        Blob copiedBlob = copyWriter.getResult();
-        blob.delete();
+        return move(blob, newBlobName, (bytesCopied, blobSize) -> {
+        });
+    }
 
-        return copiedBlob;
+    /**
+     * Moves the blob to the specific place, notifying the listener of the progress.
+     *
+     * <p> The blob is copied on server a chunk of {@link HelperOptions#getRewriteMegabytesPerChunk()}
+     * at a time, and a chunk failed with retryable error is resumed from the last one
+     * up to {@link HelperOptions#getRewriteMaxResumes()} times. The source is deleted
+     * only after the copied generation is confirmed to have the same checksum,
+     * and only if the source has not been overwritten during the move.
+     *
+     * <pre>
+     * move(blob, "archives/2021/emart.zip", (copied, total) -&gt; log.info("{} / {}", copied, total))
+     * </pre>
+     *
+     * @param blob        blob
+     * @param newBlobName new name of the blob
+     * @param listener    listener of the progress
+     * @return moved blob
+     * @throws NoSuchBlobException                                            if the blob doesn't exist
+     * @throws io.github.imsejin.gcstorage.exception.ChecksumMismatchException if the copied blob doesn't match
+     */
+    public Blob move(@NonNull Blob blob, String newBlobName, @NonNull CopyProgressListener listener) {
+        BlobId target = BlobId.of(bucketName, newBlobName);
+        BlobMover mover = new BlobMover(storage, options.getRewriteMegabytesPerChunk(), options.getRewriteMaxResumes());
+
+        try {
+            return mover.move(blob, target, listener);
+        } finally {
+            invalidate(blob.getBlobId());
+            invalidate(target);
+        }
     }
 
     /**
@@ -743,6 +1529,87 @@ public final class Helper {
         return move(blob, newBlobName);
     }
 
+    /**
+     * Moves all the blobs whose names start with the prefix, including the ones in subdirectories,
+     * to the new prefix.
+     *
+     * <p> The blobs are listed lazily and copied as they are listed, up to
+     * {@link HelperOptions#getMoveParallelism()} at the same time. Each copy is confirmed
+     * as {@link #move(Blob, String, CopyProgressListener)} does, and then the sources
+     * of the confirmed copies are deleted as batch requests. A blob failed to be moved
+     * doesn't fail the others. If the listing fails partway through, the sources of
+     * the copies confirmed until then are still deleted before the failure is thrown.
+     *
+     * <pre>
+     * movePrefix("goods/5bf62022ff2e9e001090fba9/", "goods/cde94dc2-425c-8040/")
+     * // BlobMoveResult(movedNames={"goods/5bf62022ff2e9e001090fba9/label1": "goods/cde94dc2-425c-8040/label1"}, ...)
+     * </pre>
+     *
+     * @param prefix    prefix of the names
+     * @param newPrefix new prefix of the names
+     * @return names moved, names not found and errors of the others
+     */
+    public BlobMoveResult movePrefix(@NonNull String prefix, @NonNull String newPrefix) {
+        Asserts.that(prefix)
+                .describedAs("Prefixes to move must not contain each other: '{0}', '{1}'", prefix, newPrefix)
+                .is(it -> !it.startsWith(newPrefix) && !newPrefix.startsWith(it));
+
+        // Lists with generation and checksum, which are needed to confirm the copies.
+        BlobIterator iterator = new BlobIterator(storage, bucketName, options.getListingPrefetchDepth(), null,
+                BlobListOption.prefix(prefix), BlobListOption.fields(
+                        BlobField.GENERATION, BlobField.CRC32C, BlobField.MD5HASH, BlobField.SIZE));
+        BlobMover mover = new BlobMover(storage, options.getRewriteMegabytesPerChunk(), options.getRewriteMaxResumes());
+
+        BulkMover bulkMover = new BulkMover(storage, mover, options.getMoveParallelism(),
+                options.getExecutionMode());
+        try {
+            return bulkMover.move(iterator, it -> newPrefix + it.substring(prefix.length()));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            iterator.close();
+
+            // Even if the listing has failed partway through, the blobs moved before that are changed.
+            BlobMoveResult result = bulkMover.toResult();
+            result.getMovedNames().forEach((name, newName) -> {
+                invalidate(BlobId.of(bucketName, name));
+                invalidate(BlobId.of(bucketName, newName));
+            });
+            result.getMissingNames().forEach(it -> invalidate(BlobId.of(bucketName, it)));
+        }
+    }
+
+    /**
+     * Renames the directory with the new name, moving all the blobs in it.
+     *
+     * <pre>
+     * renameDirectory("goods/5bf62022ff2e9e001090fba9/", "cde94dc2-425c-8040")
+     * // moves "goods/5bf62022ff2e9e001090fba9/**" to "goods/cde94dc2-425c-8040/**"
+     * </pre>
+     *
+     * @param directoryName name of the directory, which ends with '/'
+     * @param newSimpleName new simple name of the directory
+     * @return names moved, names not found and errors of the others
+     * @see #movePrefix(String, String)
+     */
+    public BlobMoveResult renameDirectory(@NonNull String directoryName, @NonNull String newSimpleName) {
+        Asserts.that(directoryName)
+                .describedAs("Name of directory must end with '/': '{0}'", directoryName)
+                .is(it -> it.endsWith("/") && it.length() > 1);
+
+        String parent = directoryName.substring(0, directoryName.length() - 1);
+        int i = parent.lastIndexOf('/');
+
+        String newDirectoryName;
+        if (i == -1) {
+            newDirectoryName = newSimpleName + '/';
+        } else {
+            newDirectoryName = parent.substring(0, i + 1) + newSimpleName + '/';
+        }
+
+        return movePrefix(directoryName, newDirectoryName);
+    }
+
     /**
      * Deletes the blob.
      *
@@ -750,7 +1617,92 @@ public final class Helper {
      * @return whether the blob is successfully deleted
      */
     public boolean delete(@NonNull String blobName) {
-        return storage.delete(BlobId.of(bucketName, blobName));
+        BlobId blobId = BlobId.of(bucketName, blobName);
+        boolean deleted = storage.delete(blobId);
+        invalidate(blobId);
+
+        return deleted;
+    }
+
+    /**
+     * Deletes the blobs of the names at once.
+     *
+     * <p> The names are sent as batch requests of {@value #MAX_BATCH_SIZE},
+     * and up to {@link HelperOptions#getBatchParallelism()} of them are sent at the same time.
+     * A blob failed to be deleted doesn't fail the others.
+     *
+     * <pre>
+     * List&lt;String&gt; blobNames = Arrays.asList("goods/1.jpeg", "goods/2.jpeg", "goods/3.jpeg");
+     * BlobDeletionResult result = deleteAll(blobNames);
+     *
+     * result.getDeletedNames() // ["goods/1.jpeg", "goods/3.jpeg"]
+     * result.getMissingNames() // ["goods/2.jpeg"]
+     * </pre>
+     *
+     * @param blobNames names of the blobs
+     * @return names deleted, names not found and errors of the others
+     */
+    public BlobDeletionResult deleteAll(@NonNull Collection<String> blobNames) {
+        return deleteAll(new LinkedHashSet<>(blobNames).iterator());
+    }
+
+    /**
+     * Deletes all the blobs whose names start with the prefix, including the ones in subdirectories.
+     *
+     * <p> The names are listed lazily and deleted as they are listed,
+     * so that they are not loaded into memory at once.
+     *
+     * <p> The prefix must not be empty or blank, which would delete every blob in the bucket.
+     *
+     * <pre>
+     * deletePrefix("lifecycle-images/20200101/") // BlobDeletionResult(deletedNames=[...], ...)
+     * </pre>
+     *
+     * @param prefix prefix of the names, which has text
+     * @return names deleted, names not found and errors of the others
+     * @throws IllegalArgumentException if the prefix is empty or blank
+     */
+    public BlobDeletionResult deletePrefix(String prefix) {
+        Asserts.that(prefix)
+                .describedAs("Prefix to delete must have text not to delete the whole bucket: '{0}'", prefix)
+                .isNotNull()
+                .hasText();
+
+        // Lists all the blobs under the prefix without directories, with only their names.
+        BlobIterator iterator = new BlobIterator(storage, bucketName, options.getListingPrefetchDepth(), null,
+                BlobListOption.prefix(prefix), BlobListOption.fields());
+
+        try {
+            return deleteAll(Iterators.transform(iterator, Blob::getName));
+        } finally {
+            iterator.close();
+        }
+    }
+
+    private BlobDeletionResult deleteAll(Iterator<String> blobNames) {
+        BlobDeletionResult result;
+        try {
+            result = new BulkDeleter(storage, bucketName, options.getBatchParallelism(),
+                    options.getExecutionMode()).delete(blobNames);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+
+        result.getDeletedNames().forEach(it -> invalidate(BlobId.of(bucketName, it)));
+        result.getMissingNames().forEach(it -> invalidate(BlobId.of(bucketName, it)));
+
+        return result;
+    }
+
+    /**
+     * Forgets what is cached about the blob, after it is changed by this helper.
+     *
+     * @param blobId id of the blob
+     */
+    private void invalidate(BlobId blobId) {
+        if (downloadCache != null) downloadCache.invalidate(blobId.getBucket(), blobId.getName());
+        if (metadataCache != null) metadataCache.invalidate(blobId);
+        if (listingCache != null) listingCache.invalidate(blobId.getName());
     }
 
     /////////////////////////////////// Converters ///////////////////////////////////
@@ -24,16 +24,85 @@
 
 package io.github.imsejin.gcstorage.core;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import io.github.imsejin.gcstorage.config.GoogleCloudStorageConfig;
+import io.github.imsejin.gcstorage.constant.ExecutionMode;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import lombok.NonNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @NoArgsConstructor(access = AccessLevel.PACKAGE)
 public final class HelperFactory {
 
     public static Helper create(@NonNull String bucketName) {
-        return new Helper(bucketName, GoogleCloudStorageConfig.STORAGE);
+        return create(bucketName, HelperOptions.builder().build());
+    }
+
+    public static Helper create(@NonNull String bucketName, @NonNull HelperOptions options) {
+        options.validate();
+        BufferPool bufferPool = new BufferPool(options.getUploadChunkSize(), options.getBufferPoolSize());
+        DownloadCache downloadCache = createDownloadCache(options);
+        MetadataCache metadataCache = options.getMetadataCacheMaxSize() == 0 ? null : new MetadataCache(
+                options.getMetadataCacheMaxSize(), options.getMetadataCacheTtl(), options.getMetadataCacheNegativeTtl());
+        ListingCache listingCache = options.getListingCacheRefreshInterval().isZero() ? null : new ListingCache(
+                options.getListingCacheRefreshInterval(), options.getListingCacheIdleTimeout());
+
+        return new Helper(bucketName, GoogleCloudStorageConfig.STORAGE, options, bufferPool,
+                downloadCache, metadataCache, listingCache);
+    }
+
+    public static AsyncHelper createAsync(@NonNull String bucketName) {
+        return createAsync(bucketName, HelperOptions.builder().build());
+    }
+
+    public static AsyncHelper createAsync(@NonNull String bucketName, @NonNull HelperOptions options) {
+        return createAsync(create(bucketName, options), options);
+    }
+
+    static AsyncHelper createAsync(Helper helper, HelperOptions options) {
+        if (options.getExecutionMode() == ExecutionMode.VIRTUAL_THREADS) {
+            int concurrency = options.getVirtualThreadConcurrency();
+            ExecutorService executor = VirtualThreadExecutorService.create(concurrency);
+
+            // Each kind is limited under the whole concurrency, which is capped by the executor.
+            if (executor != null) {
+                int share = Math.max(1, concurrency / 4);
+                return new AsyncHelper(helper, executor,
+                        orDefault(options.getVirtualLookupConcurrency(), concurrency),
+                        orDefault(options.getVirtualTransferConcurrency(), share),
+                        orDefault(options.getVirtualModificationConcurrency(), share));
+            }
+        }
+
+        // Falls back to platform threads, also on Java that has no virtual threads.
+        ExecutorService executor = Executors.newFixedThreadPool(options.getAsyncThreadCount(), new ThreadFactoryBuilder()
+                .setNameFormat("gcstorage-async-%d")
+                .setDaemon(true)
+                .build());
+
+        return new AsyncHelper(helper, executor, options.getAsyncLookupConcurrency(),
+                options.getAsyncTransferConcurrency(), options.getAsyncModificationConcurrency());
+    }
+
+    private static int orDefault(int concurrency, int defaultConcurrency) {
+        return concurrency == 0 ? defaultConcurrency : concurrency;
+    }
+
+    @Nullable
+    private static DownloadCache createDownloadCache(HelperOptions options) {
+        if (options.getDownloadCacheDirectory() == null) return null;
+
+        try {
+            return new DownloadCache(options.getDownloadCacheDirectory(), options.getDownloadCacheMaxSize(),
+                    options.getDownloadCacheTtl(), options.isDownloadCacheHardLink());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
     }
 
 }
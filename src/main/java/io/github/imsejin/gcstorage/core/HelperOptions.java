@@ -0,0 +1,460 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Im Sejin
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.imsejin.gcstorage.core;
+
+import io.github.imsejin.common.assertion.Asserts;
+import io.github.imsejin.gcstorage.constant.ExecutionMode;
+import lombok.Builder;
+import lombok.Getter;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Options for {@link Helper}.
+ *
+ * <pre>
+ * HelperOptions options = HelperOptions.builder()
+ *         .parallelCompositeUpload(true)
+ *         .compositeSliceCount(16)
+ *         .build();
+ *
+ * Helper helper = HelperFactory.create(bucketName, options);
+ * </pre>
+ */
+@Getter
+@Builder(toBuilder = true)
+public final class HelperOptions {
+
+    /**
+     * Maximum number of source blobs that a single compose request accepts.
+     */
+    public static final int MAX_COMPOSITE_SLICE_COUNT = 32;
+
+    /**
+     * Granularity of chunk size of {@link com.google.cloud.WriteChannel}, 256 KB.
+     */
+    public static final int CHUNK_SIZE_UNIT = 256 * 1024;
+
+    /**
+     * Whether to upload a big file as slices in parallel and compose them into the blob.
+     *
+     * <p> Composite blobs have CRC32C but no MD5 hash, and the temporary slices
+     * require permission to delete blobs in the bucket.
+     */
+    @Builder.Default
+    private final boolean parallelCompositeUpload = false;
+
+    /**
+     * Maximum number of slices a file is split into on parallel composite upload.
+     */
+    @Builder.Default
+    private final int compositeSliceCount = 8;
+
+    /**
+     * Minimum length of a slice on parallel composite upload, 32 MB by default.
+     * A file shorter than twice of this is uploaded as a single stream.
+     */
+    @Builder.Default
+    private final long compositeMinSliceSize = 32L * 1024 * 1024;
+
+    /**
+     * Directory to store checkpoints of resumable uploads. If null, a big file
+     * is uploaded from byte zero every time.
+     *
+     * <p> With this, an upload interrupted by the death of JVM continues
+     * from the last chunk written when the same file is uploaded to the same blob again.
+     *
+     * @see io.github.imsejin.gcstorage.config.GoogleCloudStorageConfig#UPLOAD_JOURNAL_DIRECTORY
+     */
+    @Nullable
+    private final Path uploadJournalDirectory;
+
+    /**
+     * Chunk size of {@link com.google.cloud.WriteChannel} on upload, 2 MB by default.
+     * It must be a multiple of {@link #CHUNK_SIZE_UNIT}.
+     *
+     * <p> Each chunk is sent as an HTTP request, so the bigger chunk
+     * needs the fewer round trips and the more memory.
+     */
+    @Builder.Default
+    private final int uploadChunkSize = 8 * CHUNK_SIZE_UNIT;
+
+    /**
+     * Maximum number of buffers for transfer, which are as large as {@link #uploadChunkSize}.
+     * When all of them are in use, the next transfer waits until one is released.
+     */
+    @Builder.Default
+    private final int bufferPoolSize = 16;
+
+    /**
+     * Maximum number of blobs whose metadata is cached in memory. If zero, which is default,
+     * the metadata is got from server every time.
+     *
+     * <p> The cache is invalidated by upload, move, rename and delete of this helper,
+     * but not by the others. A blob changed by the others can be seen as it was
+     * until its entry expires.
+     */
+    @Builder.Default
+    private final long metadataCacheMaxSize = 0;
+
+    /**
+     * Duration for which metadata of a blob is cached, 30 seconds by default.
+     */
+    @Builder.Default
+    private final Duration metadataCacheTtl = Duration.ofSeconds(30);
+
+    /**
+     * Duration for which a blob that doesn't exist is cached as missing, 5 seconds by default.
+     */
+    @Builder.Default
+    private final Duration metadataCacheNegativeTtl = Duration.ofSeconds(5);
+
+    /**
+     * Whether to check that every listed file still exists with a request of its metadata.
+     *
+     * <p> A file deleted after the listing page is fetched is excluded with this,
+     * at the cost of a request per file.
+     */
+    @Builder.Default
+    private final boolean revalidateListedBlobs = false;
+
+    /**
+     * Number of listing pages to be fetched in background ahead of the page being consumed.
+     * If zero, the next page is fetched only after the current page is consumed.
+     *
+     * <p> Each page holds up to 1000 blobs on memory until it is consumed.
+     */
+    @Builder.Default
+    private final int listingPrefetchDepth = 0;
+
+    /**
+     * Interval at which the last listing of a prefix is refreshed in background.
+     * If zero, which is default, the listing is not cached.
+     *
+     * <p> This is applied to {@link Helper#getBlobs(String, io.github.imsejin.gcstorage.constant.SearchPolicy)}
+     * and {@link Helper#getBlobNames(String, io.github.imsejin.gcstorage.constant.SearchPolicy)},
+     * which return a snapshot at most the interval old. The snapshot is dropped
+     * by upload, move, rename and delete of this helper under the prefix, but not by the others.
+     *
+     * <p> A prefix being read is listed again in background at every half of the interval.
+     * When the snapshot gets older than the interval, the caller lists it by itself.
+     */
+    @Builder.Default
+    private final Duration listingCacheRefreshInterval = Duration.ZERO;
+
+    /**
+     * Duration after which a cached prefix not read any more stops being refreshed,
+     * 5 minutes by default.
+     */
+    @Builder.Default
+    private final Duration listingCacheIdleTimeout = Duration.ofMinutes(5);
+
+    /**
+     * Maximum number of batch requests sent at the same time by bulk operations.
+     */
+    @Builder.Default
+    private final int batchParallelism = 4;
+
+    /**
+     * Maximum megabytes copied by a request when moving a blob. If zero, which is default,
+     * server decides it.
+     *
+     * <p> This is honored only when the blob is copied across locations or storage classes;
+     * otherwise the blob is copied in a request however large it is.
+     */
+    @Builder.Default
+    private final int rewriteMegabytesPerChunk = 0;
+
+    /**
+     * Maximum number of times a move is resumed from the last copied chunk
+     * after a retryable failure, 3 by default.
+     */
+    @Builder.Default
+    private final int rewriteMaxResumes = 3;
+
+    /**
+     * Maximum number of blobs copied at the same time by {@link Helper#movePrefix(String, String)}.
+     */
+    @Builder.Default
+    private final int moveParallelism = 16;
+
+    /**
+     * Mode of threads that run the operations of {@link AsyncHelper}, platform threads by default.
+     *
+     * <p> This is also applied to the threads that a single operation runs its parts on,
+     * such as slices of {@link #isParallelSlicedDownload()} and {@link #isParallelCompositeUpload()},
+     * copies of {@link Helper#movePrefix(String, String)} and batches of bulk deletion.
+     * Their numbers are still limited by the options of each.
+     */
+    @Builder.Default
+    private final ExecutionMode executionMode = ExecutionMode.PLATFORM_THREADS;
+
+    /**
+     * Number of threads that run the operations of {@link AsyncHelper}
+     * with {@link ExecutionMode#PLATFORM_THREADS}.
+     */
+    @Builder.Default
+    private final int asyncThreadCount = 32;
+
+    /**
+     * Maximum number of operations running at the same time on {@link AsyncHelper}
+     * with {@link ExecutionMode#VIRTUAL_THREADS}.
+     *
+     * <p> Each kind of operations is limited under this by its own option, such as
+     * {@link #virtualTransferConcurrency}, so that a burst of transfers doesn't take
+     * all of this from lookups. Transfers through buffers are still bounded by
+     * {@link #bufferPoolSize}, which is what keeps their memory bounded.
+     */
+    @Builder.Default
+    private final int virtualThreadConcurrency = 1000;
+
+    /**
+     * Maximum number of lookups running at the same time on {@link AsyncHelper}
+     * with {@link ExecutionMode#VIRTUAL_THREADS}. If zero, which is default,
+     * it is as many as {@link #virtualThreadConcurrency}.
+     */
+    @Builder.Default
+    private final int virtualLookupConcurrency = 0;
+
+    /**
+     * Maximum number of uploads and downloads running at the same time on {@link AsyncHelper}
+     * with {@link ExecutionMode#VIRTUAL_THREADS}. If zero, which is default,
+     * it is a quarter of {@link #virtualThreadConcurrency}.
+     */
+    @Builder.Default
+    private final int virtualTransferConcurrency = 0;
+
+    /**
+     * Maximum number of moves and deletes running at the same time on {@link AsyncHelper}
+     * with {@link ExecutionMode#VIRTUAL_THREADS}. If zero, which is default,
+     * it is a quarter of {@link #virtualThreadConcurrency}.
+     */
+    @Builder.Default
+    private final int virtualModificationConcurrency = 0;
+
+    /**
+     * Maximum number of lookups, such as getting metadata and listing,
+     * running at the same time on {@link AsyncHelper} with {@link ExecutionMode#PLATFORM_THREADS}.
+     */
+    @Builder.Default
+    private final int asyncLookupConcurrency = 32;
+
+    /**
+     * Maximum number of uploads and downloads running at the same time on {@link AsyncHelper}
+     * with {@link ExecutionMode#PLATFORM_THREADS}.
+     */
+    @Builder.Default
+    private final int asyncTransferConcurrency = 8;
+
+    /**
+     * Maximum number of moves and deletes running at the same time on {@link AsyncHelper}
+     * with {@link ExecutionMode#PLATFORM_THREADS}.
+     */
+    @Builder.Default
+    private final int asyncModificationConcurrency = 8;
+
+    /**
+     * Chunk size of {@link com.google.cloud.ReadChannel} on read, 2 MB by default.
+     *
+     * <p> Each chunk is fetched as an HTTP request and held on memory
+     * until it is consumed, so it bounds memory for a read besides the destination.
+     */
+    @Builder.Default
+    private final int readChunkSize = 8 * CHUNK_SIZE_UNIT;
+
+    /**
+     * Whether to compute MD5 hash of the content on upload in addition to CRC32C.
+     *
+     * <p> CRC32C is always computed and verified. MD5 costs more CPU than it,
+     * and a composite blob has no MD5 hash to be compared with.
+     */
+    @Builder.Default
+    private final boolean md5Enabled = false;
+
+    /**
+     * Whether to download a big blob as byte ranges in parallel
+     * and write them at their offsets of the file.
+     */
+    @Builder.Default
+    private final boolean parallelSlicedDownload = false;
+
+    /**
+     * Maximum number of byte ranges a blob is split into on parallel sliced download.
+     */
+    @Builder.Default
+    private final int downloadSliceCount = 8;
+
+    /**
+     * Minimum length of a byte range on parallel sliced download, 32 MB by default.
+     * A blob smaller than twice of this is downloaded as a single stream.
+     */
+    @Builder.Default
+    private final long downloadMinSliceSize = 32L * 1024 * 1024;
+
+    /**
+     * Directory to cache downloaded blobs. If null, a blob is downloaded
+     * from server every time.
+     *
+     * <p> The cache belongs to a {@link Helper}, so helpers must not share the directory.
+     *
+     * @see io.github.imsejin.gcstorage.config.GoogleCloudStorageConfig#DOWNLOAD_CACHE_DIRECTORY
+     */
+    @Nullable
+    private final Path downloadCacheDirectory;
+
+    /**
+     * Size limit of the download cache, 1 GB by default. When the cache exceeds it,
+     * the least recently used blobs are deleted from the cache.
+     */
+    @Builder.Default
+    private final long downloadCacheMaxSize = 1024L * 1024 * 1024;
+
+    /**
+     * Duration for which the generation of a cached blob is trusted, 1 minute by default.
+     * Within it, a blob is downloaded by its name without any request to server.
+     * If zero, the blob is validated with a request of its metadata every time.
+     */
+    @Builder.Default
+    private final Duration downloadCacheTtl = Duration.ofMinutes(1);
+
+    /**
+     * Whether to serve a cached blob as a hard link instead of a copy.
+     *
+     * <p> The downloaded file shares its content with the cache, so it must not be modified.
+     * When the destination is on the other file system, the blob is copied anyway.
+     */
+    @Builder.Default
+    private final boolean downloadCacheHardLink = false;
+
+    /**
+     * Checks whether the options are valid.
+     *
+     * @throws IllegalArgumentException if any option is invalid
+     */
+    void validate() {
+        Asserts.that(compositeSliceCount)
+                .describedAs("HelperOptions.compositeSliceCount must be between 1 and {0}: {1}",
+                        MAX_COMPOSITE_SLICE_COUNT, compositeSliceCount)
+                .isPositive()
+                .isLessThanOrEqualTo(MAX_COMPOSITE_SLICE_COUNT);
+        Asserts.that(compositeMinSliceSize)
+                .describedAs("HelperOptions.compositeMinSliceSize must be positive: {0}", compositeMinSliceSize)
+                .isPositive();
+        Asserts.that(uploadChunkSize)
+                .describedAs("HelperOptions.uploadChunkSize must be a positive multiple of {0}: {1}",
+                        CHUNK_SIZE_UNIT, uploadChunkSize)
+                .isPositive()
+                .is(it -> it % CHUNK_SIZE_UNIT == 0);
+        Asserts.that(bufferPoolSize)
+                .describedAs("HelperOptions.bufferPoolSize must be positive: {0}", bufferPoolSize)
+                .isPositive();
+        Asserts.that(listingPrefetchDepth)
+                .describedAs("HelperOptions.listingPrefetchDepth must be zero or positive: {0}", listingPrefetchDepth)
+                .is(it -> it >= 0);
+        Asserts.that(listingCacheRefreshInterval)
+                .describedAs("HelperOptions.listingCacheRefreshInterval must be zero or positive: {0}",
+                        listingCacheRefreshInterval)
+                .isNotNull()
+                .is(it -> !it.isNegative());
+        Asserts.that(listingCacheIdleTimeout)
+                .describedAs("HelperOptions.listingCacheIdleTimeout must be positive: {0}", listingCacheIdleTimeout)
+                .isNotNull()
+                .is(it -> !it.isNegative() && !it.isZero());
+        Asserts.that(metadataCacheMaxSize)
+                .describedAs("HelperOptions.metadataCacheMaxSize must be zero or positive: {0}", metadataCacheMaxSize)
+                .is(it -> it >= 0);
+        Asserts.that(metadataCacheTtl)
+                .describedAs("HelperOptions.metadataCacheTtl must be zero or positive: {0}", metadataCacheTtl)
+                .isNotNull()
+                .is(it -> !it.isNegative());
+        Asserts.that(metadataCacheNegativeTtl)
+                .describedAs("HelperOptions.metadataCacheNegativeTtl must be zero or positive: {0}",
+                        metadataCacheNegativeTtl)
+                .isNotNull()
+                .is(it -> !it.isNegative());
+        Asserts.that(rewriteMegabytesPerChunk)
+                .describedAs("HelperOptions.rewriteMegabytesPerChunk must be zero or positive: {0}",
+                        rewriteMegabytesPerChunk)
+                .is(it -> it >= 0);
+        Asserts.that(rewriteMaxResumes)
+                .describedAs("HelperOptions.rewriteMaxResumes must be zero or positive: {0}", rewriteMaxResumes)
+                .is(it -> it >= 0);
+        Asserts.that(moveParallelism)
+                .describedAs("HelperOptions.moveParallelism must be positive: {0}", moveParallelism)
+                .isPositive();
+        Asserts.that(asyncThreadCount)
+                .describedAs("HelperOptions.asyncThreadCount must be positive: {0}", asyncThreadCount)
+                .isPositive();
+        Asserts.that(executionMode)
+                .describedAs("HelperOptions.executionMode must not be null: {0}", executionMode)
+                .isNotNull();
+        Asserts.that(virtualThreadConcurrency)
+                .describedAs("HelperOptions.virtualThreadConcurrency must be positive: {0}", virtualThreadConcurrency)
+                .isPositive();
+        Asserts.that(virtualLookupConcurrency)
+                .describedAs("HelperOptions.virtualLookupConcurrency must be zero or positive, "
+                        + "not greater than virtualThreadConcurrency: {0}", virtualLookupConcurrency)
+                .is(it -> it >= 0 && it <= virtualThreadConcurrency);
+        Asserts.that(virtualTransferConcurrency)
+                .describedAs("HelperOptions.virtualTransferConcurrency must be zero or positive, "
+                        + "not greater than virtualThreadConcurrency: {0}", virtualTransferConcurrency)
+                .is(it -> it >= 0 && it <= virtualThreadConcurrency);
+        Asserts.that(virtualModificationConcurrency)
+                .describedAs("HelperOptions.virtualModificationConcurrency must be zero or positive, "
+                        + "not greater than virtualThreadConcurrency: {0}", virtualModificationConcurrency)
+                .is(it -> it >= 0 && it <= virtualThreadConcurrency);
+        Asserts.that(asyncLookupConcurrency)
+                .describedAs("HelperOptions.asyncLookupConcurrency must be positive: {0}", asyncLookupConcurrency)
+                .isPositive();
+        Asserts.that(asyncTransferConcurrency)
+                .describedAs("HelperOptions.asyncTransferConcurrency must be positive: {0}", asyncTransferConcurrency)
+                .isPositive();
+        Asserts.that(asyncModificationConcurrency)
+                .describedAs("HelperOptions.asyncModificationConcurrency must be positive: {0}", asyncModificationConcurrency)
+                .isPositive();
+        Asserts.that(batchParallelism)
+                .describedAs("HelperOptions.batchParallelism must be positive: {0}", batchParallelism)
+                .isPositive();
+        Asserts.that(readChunkSize)
+                .describedAs("HelperOptions.readChunkSize must be positive: {0}", readChunkSize)
+                .isPositive();
+        Asserts.that(downloadCacheMaxSize)
+                .describedAs("HelperOptions.downloadCacheMaxSize must be positive: {0}", downloadCacheMaxSize)
+                .isPositive();
+        Asserts.that(downloadCacheTtl)
+                .describedAs("HelperOptions.downloadCacheTtl must be zero or positive: {0}", downloadCacheTtl)
+                .isNotNull()
+                .is(it -> !it.isNegative());
+        Asserts.that(downloadSliceCount)
+                .describedAs("HelperOptions.downloadSliceCount must be positive: {0}", downloadSliceCount)
+                .isPositive();
+        Asserts.that(downloadMinSliceSize)
+                .describedAs("HelperOptions.downloadMinSliceSize must be positive: {0}", downloadMinSliceSize)
+                .isPositive();
+    }
+
+}
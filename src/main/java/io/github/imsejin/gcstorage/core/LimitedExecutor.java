@@ -0,0 +1,155 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Im Sejin
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.imsejin.gcstorage.core;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
+
+/**
+ * Executor that runs at most the limited number of operations at the same time on another executor.
+ *
+ * <p> The excess operations wait in the queue without occupying any thread, and each of them
+ * is handed to the executor when a running one completes. So a kind of operations
+ * can be limited while sharing the threads with the others.
+ *
+ * <p> Every accepted operation completes its future, even if the executor rejects it.
+ */
+final class LimitedExecutor {
+
+    private final Executor delegate;
+
+    private final int limit;
+
+    private final Queue<Task<?>> waitingTasks = new ArrayDeque<>();
+
+    private final CompletableFuture<Void> termination = new CompletableFuture<>();
+
+    private int runningCount;
+
+    private boolean shutdown;
+
+    LimitedExecutor(Executor delegate, int limit) {
+        this.delegate = delegate;
+        this.limit = limit;
+    }
+
+    /**
+     * Runs the operation when the number of running ones is under the limit.
+     *
+     * If this has been shut down, the future is already completed
+     * with {@link RejectedExecutionException}.
+     *
+     * @param operation operation
+     * @param <T>       type of the result
+     * @return future of the result
+     */
+    <T> CompletableFuture<T> supply(Supplier<T> operation) {
+        Task<T> task = new Task<>(operation);
+
+        synchronized (this) {
+            if (shutdown) {
+                return CompletableFuture.failedFuture(
+                        new RejectedExecutionException("LimitedExecutor has been shut down"));
+            }
+
+            if (runningCount >= limit) {
+                waitingTasks.add(task);
+                return task.future;
+            }
+
+            runningCount++;
+        }
+
+        run(task);
+        return task.future;
+    }
+
+    /**
+     * Stops accepting operations. The operations already accepted are still run.
+     *
+     * @return future completed when all the accepted operations are completed
+     */
+    synchronized CompletableFuture<Void> shutdown() {
+        shutdown = true;
+        if (runningCount == 0) termination.complete(null);
+
+        return termination;
+    }
+
+    private void run(Task<?> task) {
+        // Loops instead of recursion, however many tasks are rejected one after another.
+        while (task != null) {
+            Task<?> current = task;
+
+            try {
+                delegate.execute(() -> {
+                    current.run();
+
+                    Task<?> next = pollNext();
+                    if (next != null) run(next);
+                });
+                return;
+            } catch (RejectedExecutionException e) {
+                current.future.completeExceptionally(e);
+                task = pollNext();
+            }
+        }
+    }
+
+    /**
+     * Takes the next waiting task, which takes over the slot of the completed one.
+     */
+    private synchronized Task<?> pollNext() {
+        Task<?> next = waitingTasks.poll();
+        if (next != null) return next;
+
+        runningCount--;
+        if (shutdown && runningCount == 0) termination.complete(null);
+
+        return null;
+    }
+
+    private static final class Task<T> {
+        private final Supplier<T> operation;
+        private final CompletableFuture<T> future = new CompletableFuture<>();
+
+        private Task(Supplier<T> operation) {
+            this.operation = operation;
+        }
+
+        private void run() {
+            try {
+                future.complete(operation.get());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            }
+        }
+    }
+
+}
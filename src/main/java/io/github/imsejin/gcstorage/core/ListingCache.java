@@ -0,0 +1,180 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Im Sejin
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.imsejin.gcstorage.core;
+
+import com.google.cloud.storage.Blob;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Cache of listing results by prefix, which are refreshed in background.
+ *
+ * <p> The first listing of a prefix is done by the caller, and then the result
+ * is listed again at every half of the refresh interval while the prefix is read.
+ * A caller gets the last result only if its listing started within the interval,
+ * so that the result is never older than that. Otherwise, for example while
+ * the refresh keeps failing or takes longer than half the interval,
+ * the caller lists it again by itself.
+ *
+ * <p> A prefix not read for the idle timeout is no longer refreshed and dropped.
+ */
+final class ListingCache {
+
+    private final Duration refreshInterval;
+
+    private final Duration idleTimeout;
+
+    /**
+     * Listing results by prefix, guarded by this.
+     */
+    private final Map<String, Entry> entries = new HashMap<>();
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(
+            new ThreadFactoryBuilder()
+                    .setNameFormat("gcstorage-listing-refresh-%d")
+                    .setDaemon(true)
+                    .build());
+
+    ListingCache(Duration refreshInterval, Duration idleTimeout) {
+        this.refreshInterval = refreshInterval;
+        this.idleTimeout = idleTimeout;
+    }
+
+    /**
+     * Returns the last listing result of the prefix, listing it if not cached or too old.
+     *
+     * @param prefix prefix of the blobs
+     * @param lister function to list the blobs of the prefix
+     * @return blobs of the prefix
+     */
+    List<Blob> get(String prefix, Function<String, List<Blob>> lister) {
+        Entry entry;
+        long version;
+        synchronized (this) {
+            entry = entries.computeIfAbsent(prefix, it -> newEntry(it, lister));
+            entry.accessedAt = System.nanoTime();
+            if (entry.isFresh(refreshInterval)) return entry.blobs;
+
+            version = entry.version;
+        }
+
+        long startedAt = System.nanoTime();
+        List<Blob> blobs = List.copyOf(lister.apply(prefix));
+        update(entry, version, startedAt, blobs);
+
+        return blobs;
+    }
+
+    /**
+     * Drops the results that could contain the blob, after it is changed by the helper.
+     * The listings started before this are not cached, because they can miss the change.
+     *
+     * @param blobName name of the blob
+     */
+    synchronized void invalidate(String blobName) {
+        entries.forEach((prefix, entry) -> {
+            if (!blobName.startsWith(prefix)) return;
+
+            entry.version++;
+            entry.blobs = null;
+        });
+    }
+
+    private Entry newEntry(String prefix, Function<String, List<Blob>> lister) {
+        // Refreshes twice within the interval, so that the result is renewed before it gets too old.
+        long delay = Math.max(1, refreshInterval.toNanos() / 2);
+        Entry entry = new Entry();
+        entry.refresh = scheduler.scheduleWithFixedDelay(() -> refresh(prefix, lister),
+                delay, delay, TimeUnit.NANOSECONDS);
+
+        return entry;
+    }
+
+    private void refresh(String prefix, Function<String, List<Blob>> lister) {
+        Entry entry;
+        long version;
+        synchronized (this) {
+            entry = entries.get(prefix);
+            if (entry == null) return;
+
+            if (System.nanoTime() - entry.accessedAt > idleTimeout.toNanos()) {
+                entries.remove(prefix);
+                entry.refresh.cancel(false);
+                return;
+            }
+
+            version = entry.version;
+        }
+
+        try {
+            long startedAt = System.nanoTime();
+            update(entry, version, startedAt, List.copyOf(lister.apply(prefix)));
+        } catch (RuntimeException ignored) {
+            // Keeps the last result, and the caller lists again when it is too old.
+        }
+    }
+
+    /**
+     * Caches the result, unless the entry has been invalidated since the listing started
+     * or has a newer result already.
+     */
+    private synchronized void update(Entry entry, long version, long startedAt, List<Blob> blobs) {
+        if (entry.version != version) return;
+        if (entry.blobs != null && entry.refreshedAt - startedAt > 0) return;
+
+        entry.blobs = blobs;
+        entry.refreshedAt = startedAt;
+    }
+
+    /**
+     * Listing result of a prefix, guarded by the cache.
+     */
+    private static final class Entry {
+        @Nullable
+        private List<Blob> blobs;
+        /**
+         * Time when the listing of the result started, which the result is as old as.
+         */
+        private long refreshedAt;
+        private long accessedAt;
+        private long version;
+        private ScheduledFuture<?> refresh;
+
+        private boolean isFresh(Duration maxAge) {
+            return blobs != null && System.nanoTime() - refreshedAt <= maxAge.toNanos();
+        }
+    }
+
+}
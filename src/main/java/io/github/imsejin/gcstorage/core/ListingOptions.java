@@ -0,0 +1,155 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Im Sejin
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.imsejin.gcstorage.core;
+
+import com.google.cloud.storage.Storage.BlobField;
+import com.google.cloud.storage.Storage.BlobListOption;
+import io.github.imsejin.common.assertion.Asserts;
+import lombok.Builder;
+import lombok.Getter;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Options for listing blobs with {@link Helper}.
+ *
+ * <pre>
+ * ListingOptions options = ListingOptions.builder()
+ *         .pageSize(500)
+ *         .fields(BlobField.SIZE, BlobField.UPDATED)
+ *         .startOffset("lifecycle-images/20210101/")
+ *         .endOffset("lifecycle-images/20210201/")
+ *         .build();
+ *
+ * List&lt;Blob&gt; blobs = helper.getBlobs("lifecycle-images/", SearchPolicy.ALL, options);
+ * </pre>
+ */
+@Getter
+@Builder(toBuilder = true)
+public final class ListingOptions {
+
+    /**
+     * Maximum number of blobs in a page. If null, server decides it, which is 1000.
+     */
+    @Nullable
+    private final Integer pageSize;
+
+    /**
+     * Fields of the listed blobs to be returned in addition to bucket and name.
+     * If null, all the fields are returned.
+     */
+    @Nullable
+    private final Set<BlobField> fields;
+
+    /**
+     * Name which the listed blobs are lexicographically equal to or greater than.
+     *
+     * <p> The offsets are applied to the blobs as they are listed, because the version
+     * of the client doesn't take them. The listing stops at the first page past
+     * {@link #endOffset}, but the pages before {@link #startOffset} are still fetched.
+     */
+    @Nullable
+    private final String startOffset;
+
+    /**
+     * Name which the listed blobs are lexicographically less than.
+     */
+    @Nullable
+    private final String endOffset;
+
+    /**
+     * Returns the options with all the fields, server's page size and no offset.
+     *
+     * @return default options
+     */
+    public static ListingOptions defaults() {
+        return builder().build();
+    }
+
+    /**
+     * Returns whether the name is within the offsets.
+     *
+     * @param name name of the blob
+     * @return whether the name is within the offsets
+     */
+    boolean contains(String name) {
+        return (startOffset == null || name.compareTo(startOffset) >= 0)
+                && (endOffset == null || name.compareTo(endOffset) < 0);
+    }
+
+    /**
+     * Checks whether the options are valid.
+     *
+     * @throws IllegalArgumentException if any option is invalid
+     */
+    void validate() {
+        if (pageSize != null) {
+            Asserts.that(pageSize)
+                    .describedAs("ListingOptions.pageSize must be positive: {0}", pageSize)
+                    .isPositive();
+        }
+        if (startOffset != null && endOffset != null) {
+            Asserts.that(startOffset)
+                    .describedAs("ListingOptions.startOffset must be less than endOffset: {0}, {1}",
+                            startOffset, endOffset)
+                    .is(it -> it.compareTo(endOffset) < 0);
+        }
+    }
+
+    List<BlobListOption> toBlobListOptions(String prefix) {
+        List<BlobListOption> options = new ArrayList<>();
+        options.add(BlobListOption.currentDirectory());
+        options.add(BlobListOption.prefix(prefix));
+        if (pageSize != null) options.add(BlobListOption.pageSize(pageSize));
+        if (fields != null) options.add(BlobListOption.fields(fields.toArray(new BlobField[0])));
+
+        return options;
+    }
+
+    public static class ListingOptionsBuilder {
+        /**
+         * Sets fields of the listed blobs to be returned in addition to bucket and name.
+         * With no argument, only bucket and name are returned.
+         *
+         * @param fields fields of the blobs
+         * @return this builder
+         */
+        public ListingOptionsBuilder fields(BlobField... fields) {
+            this.fields = fields.length == 0 ? EnumSet.noneOf(BlobField.class) : EnumSet.copyOf(Arrays.asList(fields));
+            return this;
+        }
+
+        public ListingOptionsBuilder fields(@Nullable Set<BlobField> fields) {
+            this.fields = fields;
+            return this;
+        }
+    }
+
+}
@@ -0,0 +1,149 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Im Sejin
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.imsejin.gcstorage.core;
+
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-process cache of blobs got from storage, including the ones that don't exist.
+ *
+ * <p> A blob is cached for its TTL since it is got, and a missing one
+ * for a shorter TTL not to hide a blob uploaded by others for long.
+ * When the cache is full, the least recently used ones are evicted.
+ *
+ * <p> A blob got before it is invalidated is never cached after that. Its version is taken
+ * before the request, and the result is dropped if the version has changed since then.
+ */
+final class MetadataCache {
+
+    private static final int VERSION_STRIPES = 1024;
+
+    private final Cache<BlobId, Blob> blobs;
+
+    private final Cache<BlobId, Boolean> missingBlobIds;
+
+    /**
+     * Versions of the blobs, which are shared by the blobs in the same stripe
+     * to be bounded. A blob invalidated with another one only misses its result.
+     */
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+
+    MetadataCache(long maxSize, Duration ttl, Duration negativeTtl) {
+        this.blobs = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl.toNanos(), TimeUnit.NANOSECONDS)
+                .build();
+        this.missingBlobIds = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(negativeTtl.toNanos(), TimeUnit.NANOSECONDS)
+                .build();
+    }
+
+    /**
+     * Returns the cached blob.
+     *
+     * @param blobId id of the blob
+     * @return blob, or null if not cached
+     */
+    @Nullable
+    Blob get(BlobId blobId) {
+        return blobs.getIfPresent(keyOf(blobId));
+    }
+
+    /**
+     * Returns whether the blob is cached as missing.
+     *
+     * @param blobId id of the blob
+     * @return whether the blob is missing
+     */
+    boolean isMissing(BlobId blobId) {
+        return missingBlobIds.getIfPresent(keyOf(blobId)) != null;
+    }
+
+    /**
+     * Returns the version of the blob, which must be taken before it is requested.
+     *
+     * @param blobId id of the blob
+     * @return version of the blob
+     */
+    long version(BlobId blobId) {
+        return versions.get(stripeOf(keyOf(blobId)));
+    }
+
+    /**
+     * Caches the blob got from storage, unless it has been invalidated since the version was taken.
+     *
+     * @param blobId  id of the blob
+     * @param version version of the blob taken before it was requested
+     * @param blob    blob, or null if it doesn't exist
+     */
+    void put(BlobId blobId, long version, @Nullable Blob blob) {
+        BlobId key = keyOf(blobId);
+        int stripe = stripeOf(key);
+        if (versions.get(stripe) != version) return;
+
+        if (blob == null) {
+            blobs.invalidate(key);
+            missingBlobIds.put(key, Boolean.TRUE);
+        } else {
+            missingBlobIds.invalidate(key);
+            blobs.put(key, blob);
+        }
+
+        // Invalidated while being cached, whose invalidation may have run before the put.
+        if (versions.get(stripe) != version) evict(key);
+    }
+
+    void invalidate(BlobId blobId) {
+        BlobId key = keyOf(blobId);
+        versions.incrementAndGet(stripeOf(key));
+        evict(key);
+    }
+
+    private void evict(BlobId key) {
+        blobs.invalidate(key);
+        missingBlobIds.invalidate(key);
+    }
+
+    private static int stripeOf(BlobId key) {
+        return Math.floorMod(key.hashCode(), VERSION_STRIPES);
+    }
+
+    /**
+     * Drops the generation, so that any generation of a blob shares the entry.
+     */
+    private static BlobId keyOf(BlobId blobId) {
+        return blobId.getGeneration() == null ? blobId : BlobId.of(blobId.getBucket(), blobId.getName());
+    }
+
+}
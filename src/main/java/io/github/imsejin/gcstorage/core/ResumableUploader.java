@@ -0,0 +1,129 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Im Sejin
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.imsejin.gcstorage.core;
+
+import com.google.cloud.WriteChannel;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.StorageException;
+import io.github.imsejin.gcstorage.core.UploadJournal.Checkpoint;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Uploader that saves a checkpoint into {@link UploadJournal} whenever a buffer is written,
+ * and continues from the last checkpoint when the same file is uploaded to the same blob again.
+ *
+ * <p> On failure, the channel is left open because closing it finalizes the blob
+ * with the bytes written so far.
+ *
+ * <p> The file is written as a staging blob named after the entry, so that the upload
+ * continued by another process writes the same one, and rewritten into the blob
+ * only after its checksum is verified.
+ */
+final class ResumableUploader {
+
+    private final Storage storage;
+
+    private final BufferPool bufferPool;
+
+    private final UploadJournal journal;
+
+    private final boolean md5Enabled;
+
+    ResumableUploader(Storage storage, HelperOptions options, BufferPool bufferPool) {
+        this.storage = storage;
+        this.bufferPool = bufferPool;
+        this.md5Enabled = options.isMd5Enabled();
+        this.journal = new UploadJournal(options.getUploadJournalDirectory(), storage.getOptions());
+    }
+
+    /**
+     * Uploads a file, continuing from the last checkpoint if exists.
+     *
+     * @param blobInfo information of the blob
+     * @param path     file to be uploaded
+     * @param length   length of the file
+     * @return checksum of the file
+     * @throws IOException if failed to read the file or write the journal
+     */
+    Checksum upload(BlobInfo blobInfo, Path path, long length) throws IOException {
+        String key = journal.keyOf(blobInfo, path);
+        BlobInfo stagingInfo = StagedUpload.stagingOf(blobInfo, key);
+
+        Checkpoint checkpoint = journal.load(key);
+        if (checkpoint != null && checkpoint.getOffset() <= length) {
+            try {
+                return upload(key, stagingInfo, blobInfo, checkpoint.getState().restore(),
+                        path, checkpoint.getOffset(), length);
+            } catch (StorageException e) {
+                // When the upload session has expired, starts again from byte zero.
+                if (e.getCode() != 404 && e.getCode() != 410) throw e;
+                journal.delete(key);
+            }
+        }
+
+        WriteChannel writableChannel = storage.writer(stagingInfo);
+        writableChannel.setChunkSize(bufferPool.getBufferSize());
+
+        return upload(key, stagingInfo, blobInfo, writableChannel, path, 0, length);
+    }
+
+    private Checksum upload(String key, BlobInfo stagingInfo, BlobInfo blobInfo, WriteChannel writableChannel,
+                            Path path, long offset, long length) throws IOException {
+        ChecksumCalculator calculator = new ChecksumCalculator(md5Enabled);
+        ByteBuffer buffer = bufferPool.acquire();
+
+        try (FileChannel in = FileChannel.open(path, StandardOpenOption.READ)) {
+            // Checksum can't be saved in the journal, so it is computed again from the local bytes already uploaded.
+            for (long position = 0; position < offset; ) {
+                int size = (int) Math.min(buffer.capacity(), offset - position);
+                position += Transfer.readFully(in, position, size, buffer);
+                calculator.update(buffer);
+            }
+
+            while (offset < length) {
+                int read = Transfer.readFully(in, offset, (int) Math.min(buffer.capacity(), length - offset), buffer);
+                calculator.update(buffer);
+                Transfer.writeFully(writableChannel, buffer);
+                offset += read;
+
+                journal.save(key, writableChannel.capture(), offset);
+            }
+        } finally {
+            bufferPool.release(buffer);
+        }
+
+        writableChannel.close();
+        journal.delete(key);
+
+        return StagedUpload.complete(storage, stagingInfo, blobInfo, calculator.toChecksum());
+    }
+
+}
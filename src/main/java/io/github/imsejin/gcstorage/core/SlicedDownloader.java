@@ -0,0 +1,141 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Im Sejin
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.imsejin.gcstorage.core;
+
+import com.google.cloud.ReadChannel;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.Blob.BlobSourceOption;
+import io.github.imsejin.gcstorage.constant.ExecutionMode;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Downloader that splits a blob into byte ranges, reads them at the same time
+ * through their own {@link ReadChannel} and writes them at their offsets of the file
+ * through their own {@link FileChannel}.
+ *
+ * <pre>
+ * foo.zip (2 GB)
+ * ├─ [0, 256 MB)          ─→ ReadChannel#seek(0)      ─┐
+ * ├─ [256 MB, 512 MB)     ─→ ReadChannel#seek(256 MB) ─┤
+ * ├─ ...                                               ├─ FileChannel#write(buffer, position) ─→ foo.zip
+ * └─ [1792 MB, 2048 MB)   ─→ ReadChannel#seek(1792 MB) ┘
+ * </pre>
+ *
+ * <p> Every range is read from the same generation of the blob, so the file never
+ * consists of two generations even if the blob is overwritten while downloading.
+ */
+final class SlicedDownloader {
+
+    private final BufferPool bufferPool;
+
+    private final int sliceCount;
+
+    private final long minSliceSize;
+
+    private final ExecutionMode executionMode;
+
+    SlicedDownloader(HelperOptions options, BufferPool bufferPool) {
+        this.bufferPool = bufferPool;
+        this.sliceCount = options.getDownloadSliceCount();
+        this.minSliceSize = options.getDownloadMinSliceSize();
+        this.executionMode = options.getExecutionMode();
+    }
+
+    /**
+     * Returns the number of slices for the blob size.
+     * If it is less than 2, the blob doesn't need to be downloaded as slices.
+     *
+     * @param size size of the blob
+     * @return number of slices
+     */
+    int countSlices(long size) {
+        return (int) Math.max(1, Math.min(sliceCount, size / minSliceSize));
+    }
+
+    /**
+     * Downloads a blob into the file as slices.
+     *
+     * @param blob blob
+     * @param path file to be written, which is overwritten if exists
+     * @throws IOException if failed to read the blob or write the file
+     */
+    void download(Blob blob, Path path) throws IOException {
+        long size = blob.getSize();
+        int count = countSlices(size);
+        long sliceSize = (size + count - 1) / count;
+
+        try (FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            // Preallocates the file, so that the slices don't extend it one after another.
+            out.write(ByteBuffer.allocate(1), size - 1);
+        }
+
+        List<Future<?>> futures = new ArrayList<>(count);
+        ExecutorService executor = Tasks.newExecutor(executionMode, count);
+
+        try {
+            for (int i = 0; i < count; i++) {
+                long position = i * sliceSize;
+                long length = Math.min(sliceSize, size - position);
+
+                futures.add(executor.submit(() -> {
+                    downloadSlice(blob, path, position, length);
+                    return null;
+                }));
+            }
+
+            Tasks.awaitAll(futures, "downloading slices");
+        } finally {
+            // An interrupted slice closes only its own channel, not the ones of the others.
+            futures.forEach(it -> it.cancel(true));
+            // Waits for the slices being downloaded, not to write the file after this returns.
+            Tasks.shutdown(executor);
+        }
+    }
+
+    private void downloadSlice(Blob blob, Path path, long position, long length) throws IOException {
+        ByteBuffer buffer = bufferPool.acquire();
+
+        try (ReadChannel readChannel = blob.reader(BlobSourceOption.generationMatch());
+             FileChannel out = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            readChannel.setChunkSize((int) Math.min(bufferPool.getBufferSize(), length));
+            readChannel.seek(position);
+
+            Transfer.copy(readChannel, out, position, length, buffer);
+        } finally {
+            bufferPool.release(buffer);
+        }
+    }
+
+}
@@ -0,0 +1,107 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Im Sejin
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.imsejin.gcstorage.core;
+
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.Storage.CopyRequest;
+import com.google.cloud.storage.StorageException;
+
+/**
+ * Upload that is written as a staging blob first and rewritten into the target
+ * only after its checksum is verified.
+ *
+ * <pre>
+ * foo.zip.upload-{id} ─ verify ─ rewrite ─→ foo.zip
+ * </pre>
+ *
+ * <p> {@link com.google.cloud.WriteChannel} of this client doesn't return the generation
+ * it has written. The staging blob has a name that only this upload writes,
+ * so the generation read from it is always the one just uploaded and
+ * can be deleted safely when its checksum doesn't match. The target is never
+ * written with the content that doesn't match, and the one written by others
+ * is never deleted.
+ *
+ * <p> Rewriting a blob within the same bucket and storage class is done by server
+ * without copying the content, so it is completed by a single request.
+ */
+final class StagedUpload {
+
+    private static final String INFIX = ".upload-";
+
+    private StagedUpload() {
+    }
+
+    /**
+     * Returns information of the staging blob for the upload.
+     *
+     * @param blobInfo information of the target blob
+     * @param id       identifier that is unique to the upload
+     * @return information of the staging blob
+     */
+    static BlobInfo stagingOf(BlobInfo blobInfo, String id) {
+        BlobId blobId = blobInfo.getBlobId();
+        return blobInfo.toBuilder()
+                .setBlobId(BlobId.of(blobId.getBucket(), blobId.getName() + INFIX + id))
+                .build();
+    }
+
+    /**
+     * Verifies the staging blob and rewrites it into the target.
+     * The staging blob is always deleted, whether it succeeds or not.
+     *
+     * @param storage     storage
+     * @param stagingInfo information of the staging blob which has been written
+     * @param blobInfo    information of the target blob
+     * @param expected    checksum computed while uploading
+     * @return expected checksum
+     * @throws io.github.imsejin.gcstorage.exception.ChecksumMismatchException if the checksums don't match
+     */
+    static Checksum complete(Storage storage, BlobInfo stagingInfo, BlobInfo blobInfo, Checksum expected) {
+        try {
+            ChecksumCalculator.verify(storage, stagingInfo.getBlobId(), expected);
+
+            CopyRequest request = CopyRequest.newBuilder()
+                    .setSource(stagingInfo.getBlobId())
+                    .setTarget(blobInfo)
+                    .build();
+            storage.copy(request).getResult();
+
+            return expected;
+        } finally {
+            deleteQuietly(storage, stagingInfo.getBlobId());
+        }
+    }
+
+    private static void deleteQuietly(Storage storage, BlobId stagingId) {
+        try {
+            storage.delete(stagingId);
+        } catch (StorageException ignored) {
+            // Leftover staging blob doesn't affect the target.
+        }
+    }
+
+}
@@ -0,0 +1,127 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Im Sejin
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.imsejin.gcstorage.core;
+
+import io.github.imsejin.gcstorage.constant.ExecutionMode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Utilities for tasks that run at the same time on an {@link ExecutorService}.
+ */
+final class Tasks {
+
+    private Tasks() {
+    }
+
+    /**
+     * Returns an executor that runs the tasks of an operation, up to the parallelism at the same time.
+     *
+     * <p> With {@link ExecutionMode#VIRTUAL_THREADS}, each task runs on its own virtual thread,
+     * so that the tasks waiting on I/O don't hold platform threads. On Java that has
+     * no virtual threads, they run on platform threads as many as the parallelism.
+     *
+     * @param mode        execution mode
+     * @param parallelism maximum number of tasks running at the same time
+     * @return executor, which must be shut down after the operation
+     */
+    static ExecutorService newExecutor(ExecutionMode mode, int parallelism) {
+        if (mode == ExecutionMode.VIRTUAL_THREADS) {
+            ExecutorService executor = VirtualThreadExecutorService.create(parallelism);
+            if (executor != null) return executor;
+        }
+
+        return Executors.newFixedThreadPool(parallelism);
+    }
+
+    /**
+     * Waits for all the tasks to complete, and rethrows the first failure of them.
+     *
+     * @param futures futures of the tasks
+     * @param action  description of the tasks, such as "uploading slices"
+     * @throws IOException if any task fails or the current thread is interrupted
+     */
+    static void awaitAll(List<? extends Future<?>> futures, String action) throws IOException {
+        for (Future<?> future : futures) {
+            get(future, action);
+        }
+    }
+
+    /**
+     * Waits for all the tasks to complete, and returns their results in order.
+     *
+     * @param futures futures of the tasks
+     * @param action  description of the tasks, such as "deleting blobs"
+     * @param <T>     type of the result
+     * @return results of the tasks
+     * @throws IOException if any task fails or the current thread is interrupted
+     */
+    static <T> List<T> getAll(List<Future<T>> futures, String action) throws IOException {
+        List<T> results = new ArrayList<>(futures.size());
+        for (Future<T> future : futures) {
+            results.add(get(future, action));
+        }
+
+        return results;
+    }
+
+    private static <T> T get(Future<T> future, String action) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while " + action, e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IOException(cause);
+        }
+    }
+
+    /**
+     * Cancels the tasks not completed yet and waits for the running ones to stop,
+     * so that nothing is left behind the cleanup after this.
+     *
+     * @param executor executor of the tasks
+     */
+    static void shutdown(ExecutorService executor) {
+        executor.shutdownNow();
+
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,156 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Im Sejin
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.imsejin.gcstorage.core;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+
+/**
+ * Utilities for moving bytes between channels.
+ */
+final class Transfer {
+
+    private Transfer() {
+    }
+
+    /**
+     * Copies the region of a file into the channel, a buffer at a time.
+     *
+     * <p> Unlike {@link FileChannel#transferTo(long, long, WritableByteChannel)},
+     * this has no limit of 2GB and writes as many bytes as the buffer at once.
+     *
+     * @param in         file channel
+     * @param position   position of the region
+     * @param size       size of the region
+     * @param out        destination
+     * @param buffer     buffer to be used for copying
+     * @param calculator calculator to be fed with the copied bytes
+     * @throws IOException if failed to read or write, or the file is shorter than the region
+     */
+    static void copy(FileChannel in, long position, long size, WritableByteChannel out, ByteBuffer buffer,
+                     ChecksumCalculator calculator) throws IOException {
+        long end = position + size;
+
+        while (position < end) {
+            int length = readFully(in, position, (int) Math.min(buffer.capacity(), end - position), buffer);
+            calculator.update(buffer);
+            writeFully(out, buffer);
+            position += length;
+        }
+    }
+
+    /**
+     * Copies bytes of the channel into the region of a file, a buffer at a time.
+     * Writes at the position of the file, so that other regions can be written at the same time.
+     *
+     * @param in       blocking channel
+     * @param out      file channel
+     * @param position position of the region
+     * @param size     size of the region
+     * @param buffer   buffer to be used for copying
+     * @throws IOException if failed to read or write, or the channel is shorter than the region
+     */
+    static void copy(ReadableByteChannel in, FileChannel out, long position, long size, ByteBuffer buffer)
+            throws IOException {
+        long end = position + size;
+
+        while (position < end) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+            while (buffer.hasRemaining()) {
+                if (in.read(buffer) < 0) throw new EOFException("Channel has ended before the position " + end);
+            }
+
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                position += out.write(buffer, position);
+            }
+        }
+    }
+
+    /**
+     * Reads bytes of the file into the buffer from the position, until the buffer has the length.
+     * The buffer is flipped for reading.
+     *
+     * @param in       file channel
+     * @param position position of the file
+     * @param length   number of bytes to be read, not greater than capacity of the buffer
+     * @param buffer   buffer to read into
+     * @return length
+     * @throws IOException if failed to read or reached end of the file
+     */
+    static int readFully(FileChannel in, long position, int length, ByteBuffer buffer) throws IOException {
+        buffer.clear().limit(length);
+
+        while (buffer.hasRemaining()) {
+            int read = in.read(buffer, position + buffer.position());
+            if (read < 0) throw new EOFException("File has been truncated while reading at " + position);
+        }
+
+        buffer.flip();
+        return length;
+    }
+
+    /**
+     * Reads bytes of the channel into the buffer, until the buffer is full or the channel reaches its end.
+     * The buffer is flipped for reading.
+     *
+     * @param in     blocking channel
+     * @param buffer buffer to read into
+     * @return whether the channel has reached its end
+     * @throws IOException if failed to read
+     */
+    static boolean fill(ReadableByteChannel in, ByteBuffer buffer) throws IOException {
+        buffer.clear();
+
+        boolean endOfStream = false;
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer) < 0) {
+                endOfStream = true;
+                break;
+            }
+        }
+
+        buffer.flip();
+        return endOfStream;
+    }
+
+    /**
+     * Writes all the remaining bytes of the buffer into the channel.
+     *
+     * @param out    destination
+     * @param buffer buffer to write
+     * @throws IOException if failed to write
+     */
+    static void writeFully(WritableByteChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+}
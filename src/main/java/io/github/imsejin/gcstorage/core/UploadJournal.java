@@ -0,0 +1,202 @@
+/*
+ * MIT License
+ *
+ * Copyright (c) 2021 Im Sejin
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+
+package io.github.imsejin.gcstorage.core;
+
+import com.google.cloud.RestorableState;
+import com.google.cloud.WriteChannel;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.StorageOptions;
+import com.google.common.hash.Hashing;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Local journal of resumable uploads.
+ *
+ * <p> Each entry keeps the captured state of {@link WriteChannel} and the offset
+ * of the file that has been written into it, so that an upload interrupted by
+ * the death of JVM can continue from the last checkpoint.
+ *
+ * <p> An entry is identified by the blob and the path, length and last modified time
+ * of the file. If the file is changed, its previous entry is never used.
+ *
+ * <p> The credentials in {@link StorageOptions} are never written to the journal.
+ * They are replaced with the options of the current storage on restoration.
+ *
+ * <p> Only the classes that make up a checkpoint can be read from the journal.
+ * An entry that contains any other class is treated as corrupted.
+ */
+@RequiredArgsConstructor
+final class UploadJournal {
+
+    private static final String EXTENSION = ".journal";
+
+    /**
+     * Allow-list of the classes that can be read from the journal.
+     */
+    private static final ObjectInputFilter FILTER = ObjectInputFilter.Config.createFilter(String.join(";",
+            "maxdepth=32",
+            UploadJournal.class.getName() + "$*",
+            "com.google.cloud.*",
+            "com.google.cloud.storage.*",
+            "com.google.common.collect.*",
+            "java.lang.*",
+            "java.util.*",
+            "!*"));
+
+    private final Path directory;
+
+    private final StorageOptions storageOptions;
+
+    /**
+     * Returns the key of the entry for the upload.
+     *
+     * @param blobInfo information of the blob
+     * @param path     file to be uploaded
+     * @return key of the entry
+     * @throws IOException if failed to read attributes of the file
+     */
+    String keyOf(BlobInfo blobInfo, Path path) throws IOException {
+        String identity = String.join("\n",
+                blobInfo.getBucket(), blobInfo.getName(), path.toAbsolutePath().toString(),
+                String.valueOf(Files.size(path)), String.valueOf(Files.getLastModifiedTime(path).toMillis()));
+
+        return Hashing.sha256().hashString(identity, StandardCharsets.UTF_8).toString();
+    }
+
+    /**
+     * Returns the last checkpoint of the upload.
+     * If the entry doesn't exist, is corrupted or contains a class
+     * other than those of the checkpoint, returns null.
+     *
+     * @param key key of the entry
+     * @return checkpoint or null
+     */
+    @Nullable
+    Checkpoint load(String key) {
+        Path path = directory.resolve(key + EXTENSION);
+        if (Files.notExists(path)) return null;
+
+        try (ObjectInputStream in = new RestoringInputStream(Files.newInputStream(path), storageOptions)) {
+            return (Checkpoint) in.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            delete(key);
+            return null;
+        }
+    }
+
+    /**
+     * Saves the checkpoint of the upload, replacing the previous one atomically.
+     *
+     * @param key    key of the entry
+     * @param state  state of the channel
+     * @param offset offset of the file that has been written into the channel
+     * @throws IOException if failed to write the entry
+     */
+    void save(String key, RestorableState<WriteChannel> state, long offset) throws IOException {
+        Files.createDirectories(directory);
+
+        Path temp = Files.createTempFile(directory, key, EXTENSION + ".tmp");
+        try {
+            try (ObjectOutputStream out = new CapturingOutputStream(Files.newOutputStream(temp))) {
+                out.writeObject(new Checkpoint(state, offset));
+            }
+
+            Files.move(temp, directory.resolve(key + EXTENSION),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Deletes the entry of the upload.
+     *
+     * @param key key of the entry
+     */
+    void delete(String key) {
+        try {
+            Files.deleteIfExists(directory.resolve(key + EXTENSION));
+        } catch (IOException ignored) {
+            // The entry of a changed file is never used again.
+        }
+    }
+
+    /**
+     * Checkpoint of a resumable upload.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    static final class Checkpoint implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final RestorableState<WriteChannel> state;
+
+        private final long offset;
+    }
+
+    /**
+     * Placeholder of {@link StorageOptions} in the journal.
+     */
+    private enum StorageOptionsPlaceholder {
+        INSTANCE
+    }
+
+    private static final class CapturingOutputStream extends ObjectOutputStream {
+        private CapturingOutputStream(OutputStream out) throws IOException {
+            super(out);
+            enableReplaceObject(true);
+        }
+
+        @Override
+        protected Object replaceObject(Object obj) {
+            return obj instanceof StorageOptions ? StorageOptionsPlaceholder.INSTANCE : obj;
+        }
+    }
+
+    private static final class RestoringInputStream extends ObjectInputStream {
+        private final StorageOptions storageOptions;
+
+        private RestoringInputStream(InputStream in, StorageOptions storageOptions) throws IOException {
+            super(in);
+            this.storageOptions = storageOptions;
+            setObjectInputFilter(FILTER);
+            enableResolveObject(true);
+        }
+
+        @Override
+        protected Object resolveObject(Object obj) {
+            return obj == StorageOptionsPlaceholder.INSTANCE ? storageOptions : obj;
+        }
+    }
+
+}
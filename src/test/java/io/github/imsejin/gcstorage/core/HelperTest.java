@@ -26,29 +26,55 @@ package io.github.imsejin.gcstorage.core;
 
 import com.google.cloud.storage.Blob;
 import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.Storage;
+import com.google.cloud.storage.Storage.BlobField;
 import io.github.imsejin.common.constant.DateType;
 import io.github.imsejin.common.util.CollectionUtils;
 import io.github.imsejin.common.util.FilenameUtils;
 import io.github.imsejin.common.util.StringUtils;
+import io.github.imsejin.gcstorage.config.GoogleCloudStorageConfig;
+import io.github.imsejin.gcstorage.constant.ExecutionMode;
 import io.github.imsejin.gcstorage.constant.SearchPolicy;
+import io.github.imsejin.gcstorage.exception.ChecksumMismatchException;
+import io.github.imsejin.gcstorage.exception.NoSuchBlobException;
 import io.github.imsejin.gcstorage.util.MimeTypeUtils;
 import lombok.SneakyThrows;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.InputStream;
+import java.io.ObjectOutputStream;
+import java.lang.reflect.Proxy;
 import java.net.URL;
 import java.net.URLConnection;
 import java.net.URLEncoder;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.time.Duration;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
+import java.util.stream.Stream;
 
 import static java.util.stream.Collectors.toList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.catchThrowable;
 
 class HelperTest {
 
@@ -71,6 +97,190 @@ class HelperTest {
                 .returns(blobName, Blob::getName);
     }
 
+    @Test
+    void getBlobsByNames() {
+        // given
+        List<String> blobNames = helper.getBlobNames("user_data/db_list/topic/", SearchPolicy.FILES);
+        String missingName = "user_data/db_list/topic/not-existing-blob.xlsx";
+        List<String> names = new ArrayList<>(blobNames);
+        names.add(missingName);
+
+        // when
+        BlobBatchResult result = helper.getBlobs(names);
+
+        // then
+        assertThat(result.getBlobs().keySet()).containsExactlyElementsOf(blobNames);
+        assertThat(result.getMissingNames()).containsExactly(missingName);
+        assertThat(result.getErrors()).isEmpty();
+    }
+
+    @Test
+    void getBlobFromMetadataCache() {
+        // given
+        String blobName = "user_data/db_list/topic/db_list_20200320_hand_wash.xlsx";
+        String missingName = "user_data/db_list/topic/not-existing-blob.xlsx";
+        HelperOptions options = HelperOptions.builder().metadataCacheMaxSize(100).build();
+        Helper cachingHelper = HelperFactory.create(BUCKET_NAME, options);
+
+        // when
+        Blob blob = cachingHelper.getBlob(blobName);
+
+        // then
+        assertThat(cachingHelper.getBlob(blobName))
+                .as("The blob must be served from the cache.")
+                .isSameAs(blob);
+        assertThat(cachingHelper.getBlob(blobName, true))
+                .as("Recheck must not be served from the cache.")
+                .isNotSameAs(blob)
+                .returns(blob.getGeneration(), Blob::getGeneration);
+        assertThatExceptionOfType(NoSuchBlobException.class)
+                .isThrownBy(() -> cachingHelper.getBlob(missingName));
+        assertThatExceptionOfType(NoSuchBlobException.class)
+                .as("The missing blob must be cached as missing.")
+                .isThrownBy(() -> cachingHelper.getBlob(missingName));
+    }
+
+    @Test
+    void getBlobsFromListingCache() {
+        // given
+        String blobName = "user_data/db_list/topic/";
+        HelperOptions options = HelperOptions.builder().listingCacheRefreshInterval(Duration.ofSeconds(10)).build();
+        Helper cachingHelper = HelperFactory.create(BUCKET_NAME, options);
+
+        // when
+        List<Blob> blobs = cachingHelper.getBlobs(blobName, SearchPolicy.ALL);
+
+        // then
+        assertThat(cachingHelper.getBlobs(blobName, SearchPolicy.ALL))
+                .as("The blobs must be served from the last listing.")
+                .usingElementComparator((a, b) -> a == b ? 0 : 1)
+                .containsExactlyElementsOf(blobs);
+        assertThat(cachingHelper.getBlobNames(blobName, SearchPolicy.FILES))
+                .as("The other policy must be served from the same listing.")
+                .containsExactlyElementsOf(blobs.stream().filter(Predicate.not(Blob::isDirectory))
+                        .map(Blob::getName).collect(toList()));
+    }
+
+    @Test
+    void getBlobAsync() {
+        // given
+        String blobName = "user_data/db_list/topic/db_list_20200320_hand_wash.xlsx";
+        String missingName = "user_data/db_list/topic/not-existing-blob.xlsx";
+
+        // when
+        try (AsyncHelper asyncHelper = HelperFactory.createAsync(BUCKET_NAME)) {
+            CompletableFuture<Blob> blob = asyncHelper.getBlobAsync(blobName);
+            CompletableFuture<Blob> missingBlob = asyncHelper.getBlobAsync(missingName);
+
+            // then
+            assertThat(blob.join())
+                    .returns(blobName, Blob::getName);
+            assertThatExceptionOfType(CompletionException.class)
+                    .isThrownBy(missingBlob::join)
+                    .withCauseInstanceOf(NoSuchBlobException.class);
+        }
+    }
+
+    @Test
+    void closeAsyncHelperWithQueuedOperations() {
+        // given
+        String blobName = "user_data/db_list/topic/db_list_20200320_hand_wash.xlsx";
+        HelperOptions options = HelperOptions.builder()
+                .asyncThreadCount(1)
+                .asyncLookupConcurrency(1)
+                .build();
+        AsyncHelper asyncHelper = HelperFactory.createAsync(BUCKET_NAME, options);
+        List<CompletableFuture<Blob>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(asyncHelper.getBlobAsync(blobName));
+        }
+
+        // when
+        asyncHelper.close();
+
+        // then
+        assertThat(futures)
+                .as("The operations queued before close must be completed when close returns.")
+                .allSatisfy(it -> assertThat(it.getNow(null))
+                        .returns(blobName, Blob::getName));
+        assertThatExceptionOfType(CompletionException.class)
+                .as("The operation after close must be rejected through its future.")
+                .isThrownBy(() -> asyncHelper.getBlobAsync(blobName).join())
+                .withCauseInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    void limitLookupsOnVirtualThreads() {
+        // given
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        Storage storage = newStorage(blobId -> {
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            sleep(50);
+            running.decrementAndGet();
+        });
+        // Platform options are the same, for the fallback on Java that has no virtual threads.
+        HelperOptions options = HelperOptions.builder()
+                .executionMode(ExecutionMode.VIRTUAL_THREADS)
+                .virtualThreadConcurrency(8)
+                .virtualLookupConcurrency(2)
+                .asyncThreadCount(8)
+                .asyncLookupConcurrency(2)
+                .build();
+
+        // when
+        List<CompletableFuture<Blob>> futures = new ArrayList<>();
+        try (AsyncHelper asyncHelper = HelperFactory.createAsync(newHelper(storage, options), options)) {
+            for (int i = 0; i < 20; i++) {
+                futures.add(asyncHelper.getBlobAsync("lookup-" + i));
+            }
+        }
+
+        // then
+        assertThat(futures)
+                .as("Every lookup must complete.")
+                .allMatch(CompletableFuture::isDone);
+        assertThat(maxRunning.get())
+                .as("Lookups must be limited by virtualLookupConcurrency.")
+                .isEqualTo(2);
+    }
+
+    @Test
+    void lookupOnVirtualThreadsWithSaturatedTransfers() {
+        // given
+        CountDownLatch release = new CountDownLatch(1);
+        Storage storage = newStorage(blobId -> {
+            if (blobId.getName().startsWith("transfer-")) await(release);
+        });
+        // Platform options are the same, for the fallback on Java that has no virtual threads.
+        HelperOptions options = HelperOptions.builder()
+                .executionMode(ExecutionMode.VIRTUAL_THREADS)
+                .virtualThreadConcurrency(4)
+                .virtualTransferConcurrency(2)
+                .asyncThreadCount(4)
+                .asyncTransferConcurrency(2)
+                .build();
+
+        try (AsyncHelper asyncHelper = HelperFactory.createAsync(newHelper(storage, options), options)) {
+            List<CompletableFuture<byte[]>> transfers = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                transfers.add(asyncHelper.readAllBytesAsync("transfer-" + i));
+            }
+
+            // when
+            CompletableFuture<Blob> lookup = asyncHelper.getBlobAsync("lookup");
+
+            // then
+            assertThatExceptionOfType(CompletionException.class)
+                    .as("Lookup must not wait for the transfers beyond their limit.")
+                    .isThrownBy(() -> lookup.orTimeout(10, TimeUnit.SECONDS).join())
+                    .withCauseInstanceOf(NoSuchBlobException.class);
+            assertThat(transfers).noneMatch(CompletableFuture::isDone);
+
+            release.countDown();
+        }
+    }
+
     @Test
     void getFileBlobs() {
         // given
@@ -105,6 +315,65 @@ class HelperTest {
         }
     }
 
+    @Test
+    void streamBlobs() {
+        // given
+        String blobName = "user_data/db_list/topic/";
+
+        // when
+        List<Blob> blobs;
+        try (Stream<Blob> stream = helper.streamBlobs(blobName, SearchPolicy.FILES)) {
+            blobs = stream.limit(3).collect(toList());
+        }
+
+        // then
+        assertThat(blobs)
+                .hasSizeLessThanOrEqualTo(3)
+                .allMatch(Predicate.not(Blob::isDirectory))
+                .allMatch(it -> it.getName().startsWith(blobName));
+        assertThat(blobs)
+                .as("The stream must have the same order as the list.")
+                .isEqualTo(helper.getBlobs(blobName, SearchPolicy.FILES).stream().limit(3).collect(toList()));
+    }
+
+    @Test
+    void getBlobsWithPrefetch() {
+        // given
+        String blobName = "lifecycle-images/";
+        HelperOptions options = HelperOptions.builder().listingPrefetchDepth(2).build();
+        Helper prefetchingHelper = HelperFactory.create(BUCKET_NAME, options);
+
+        // when
+        List<String> blobNames = prefetchingHelper.getBlobNames(blobName, SearchPolicy.ALL);
+
+        // then
+        assertThat(blobNames)
+                .as("Prefetching pages must not change the result.")
+                .isEqualTo(helper.getBlobNames(blobName, SearchPolicy.ALL));
+    }
+
+    @Test
+    void getBlobsWithListingOptions() {
+        // given
+        String blobName = "user_data/db_list/topic/";
+        ListingOptions options = ListingOptions.builder()
+                .pageSize(2)
+                .fields(BlobField.SIZE)
+                .startOffset(blobName + "db_list_20200320_i")
+                .endOffset(blobName + "db_list_20200320_n")
+                .build();
+
+        // when
+        List<Blob> blobs = helper.getBlobs(blobName, SearchPolicy.FILES, options);
+
+        // then
+        assertThat(blobs)
+                .isNotEmpty()
+                .allMatch(it -> it.getName().compareTo(options.getStartOffset()) >= 0)
+                .allMatch(it -> it.getName().compareTo(options.getEndOffset()) < 0)
+                .allMatch(it -> it.getSize() != null && it.getContentType() == null);
+    }
+
     @Test
     void getBlobNames() {
         // given
@@ -134,6 +403,28 @@ class HelperTest {
         assertThat(blob).isNotNull();
     }
 
+    @Test
+    void getLastBlobWithListingOptions() {
+        // given
+        String blobName = "user_data/db_list/";
+        ListingOptions options = ListingOptions.builder()
+                .pageSize(1)
+                .fields(BlobField.SIZE)
+                .build();
+
+        // when
+        Blob blob = helper.getLastBlob(blobName, false, options);
+
+        // then
+        assertThat(blob)
+                .isNotNull()
+                .returns(helper.getLastBlob(blobName, false).getName(), Blob::getName)
+                .returns(false, it -> it.getSize() == null);
+        assertThat(helper.getLastBlob(blobName, false, options))
+                .as("The last blob must be found again from the high-water mark.")
+                .returns(blob.getName(), Blob::getName);
+    }
+
     @Test
     void getLastBlobPriorToDirectory() {
         // given
@@ -308,6 +599,134 @@ class HelperTest {
                 .hasBinaryContent(blob.getContent());
     }
 
+    @Test
+    @SneakyThrows
+    void downloadAfterPartialDownload() {
+        // given
+        Blob blob = helper.getLastBlob("lifecycle-images/.processed/", true);
+        assertThat(blob).isNotNull();
+        Path dest = Paths.get("/data", "google-cloud-storage", "downloads");
+        String filename = "resumed-" + Helper.toSimpleName(blob.getName());
+        Path part = dest.resolve(filename + '.' + blob.getGeneration() + ".part");
+        Files.createDirectories(dest);
+        Files.write(part, Arrays.copyOf(blob.getContent(), (int) (blob.getSize() / 2)));
+
+        // when
+        File file = helper.download(blob, dest, filename);
+
+        // then
+        assertThat(file)
+                .exists()
+                .hasSize(blob.getSize())
+                .hasBinaryContent(blob.getContent());
+        assertThat(part)
+                .as("Temporary file of the completed download must be renamed.")
+                .doesNotExist();
+    }
+
+    @Test
+    void downloadFromProjectedListing() {
+        // given
+        String blobName = "user_data/db_list/topic/";
+        ListingOptions listingOptions = ListingOptions.builder().fields(BlobField.SIZE, BlobField.UPDATED).build();
+        List<Blob> blobs = helper.getBlobs(blobName, SearchPolicy.FILES, listingOptions);
+        if (CollectionUtils.isNullOrEmpty(blobs)) return;
+        Blob blob = blobs.get(0);
+        Path dest = Paths.get("/data", "google-cloud-storage", "downloads");
+
+        // when
+        File file = helper.download(blob, dest);
+
+        // then
+        assertThat(blob.getGeneration())
+                .as("The listed blob must not have generation.")
+                .isNull();
+        assertThat(file)
+                .exists()
+                .hasName(Helper.toSimpleName(blob.getName()))
+                .hasSize(blob.getSize());
+    }
+
+    @Test
+    void downloadAsSlices() {
+        // given
+        Blob blob = helper.getLastBlob("lifecycle-images/.processed/", true);
+        assertThat(blob).isNotNull();
+        Path dest = Paths.get("/data", "google-cloud-storage", "downloads");
+        HelperOptions options = HelperOptions.builder()
+                .parallelSlicedDownload(true)
+                .downloadMinSliceSize(1024 * 1024)
+                .build();
+        Helper slicedHelper = HelperFactory.create(BUCKET_NAME, options);
+
+        // when
+        File file = slicedHelper.download(blob, dest, "sliced-" + Helper.toSimpleName(blob.getName()));
+
+        // then
+        assertThat(file)
+                .isNotEmpty()
+                .exists()
+                .hasSize(blob.getSize())
+                .hasBinaryContent(blob.getContent());
+    }
+
+    @Test
+    @SneakyThrows
+    void downloadFromCache() {
+        // given
+        Blob blob = helper.getLastBlob("user_data/db_list/2021", true);
+        assertThat(blob).isNotNull();
+        Path dest = Paths.get("/data", "google-cloud-storage", "downloads");
+        Path cacheDirectory = Paths.get("/data", "google-cloud-storage", "test-download-cache");
+        HelperOptions options = HelperOptions.builder().downloadCacheDirectory(cacheDirectory).build();
+        Helper cachingHelper = HelperFactory.create(BUCKET_NAME, options);
+
+        // when
+        File first = cachingHelper.download(blob.getName(), dest, "cached-first");
+        File second = cachingHelper.download(blob.getName(), dest, "cached-second");
+
+        // then
+        assertThat(first).hasBinaryContent(blob.getContent());
+        assertThat(second).hasSameBinaryContentAs(first);
+        try (Stream<Path> cachedFiles = Files.list(cacheDirectory)) {
+            assertThat(cachedFiles)
+                    .as("The blob must be cached once by its generation.")
+                    .anyMatch(it -> it.getFileName().toString().endsWith("." + blob.getGeneration()));
+        }
+    }
+
+    @Test
+    void readAllBytes() {
+        // given
+        Blob blob = helper.getLastBlob("user_data/db_list/2021", true);
+        assertThat(blob).isNotNull();
+
+        // when
+        byte[] bytes = helper.readAllBytes(blob.getName());
+
+        // then
+        assertThat(bytes).isEqualTo(blob.getContent());
+    }
+
+    @Test
+    @SneakyThrows
+    void readToStream() {
+        // given
+        Blob blob = helper.getLastBlob("user_data/db_list/2021", true);
+        assertThat(blob).isNotNull();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        // when
+        long count = helper.read(blob.getName(), out);
+
+        // then
+        assertThat(count).isEqualTo(blob.getSize());
+        assertThat(out.toByteArray()).isEqualTo(blob.getContent());
+        try (InputStream in = helper.openStream(blob.getName())) {
+            assertThat(in).hasBinaryContent(blob.getContent());
+        }
+    }
+
     @Test
     void uploadSmallFile() {
         // given
@@ -350,6 +769,206 @@ class HelperTest {
                 .returns(MimeTypeUtils.getMimeType(file), Blob::getContentType);
     }
 
+    @Test
+    void uploadBigFileAsComposite() {
+        // given
+        Blob blob = helper.getLastBlob("lifecycle-images/.processed/", true);
+        Path dest = Paths.get("/data", "google-cloud-storage", "downloads");
+        File file = helper.download(blob, dest);
+        HelperOptions options = HelperOptions.builder()
+                .parallelCompositeUpload(true)
+                .compositeSliceCount(4)
+                .compositeMinSliceSize(Math.max(1, file.length() / 4))
+                .build();
+        Helper compositeHelper = HelperFactory.create(BUCKET_NAME, options);
+
+        // when
+        String blobName = "test/uploaded-composite-file." + FilenameUtils.getExtension(file.getName());
+        BlobId blobId = BlobId.of(BUCKET_NAME, blobName);
+        compositeHelper.upload(blobId, file);
+
+        // then
+        Blob actual = helper.getBlob(blobId.getName());
+        assertThat(actual)
+                .isNotNull()
+                .returns(true, Blob::exists)
+                .returns(file.length(), Blob::getSize)
+                .returns(MimeTypeUtils.getMimeType(file), Blob::getContentType);
+        assertThat(helper.getBlobNames(blobName + ".composite-", SearchPolicy.FILES))
+                .as("Components of the composite blob must be deleted.")
+                .isEmpty();
+    }
+
+    @Test
+    @SneakyThrows
+    void uploadBigFileResumably() {
+        // given
+        Blob blob = helper.getLastBlob("lifecycle-images/.processed/", true);
+        Path dest = Paths.get("/data", "google-cloud-storage", "downloads");
+        File file = helper.download(blob, dest);
+        Path journalDirectory = Paths.get("/data", "google-cloud-storage", "test-upload-journals");
+        HelperOptions options = HelperOptions.builder().uploadJournalDirectory(journalDirectory).build();
+        Helper resumableHelper = HelperFactory.create(BUCKET_NAME, options);
+
+        // when
+        String blobName = "test/uploaded-resumable-file." + FilenameUtils.getExtension(file.getName());
+        BlobId blobId = BlobId.of(BUCKET_NAME, blobName);
+        resumableHelper.upload(blobId, file);
+
+        // then
+        Blob actual = helper.getBlob(blobId.getName());
+        assertThat(actual)
+                .isNotNull()
+                .returns(true, Blob::exists)
+                .returns(file.length(), Blob::getSize);
+        try (Stream<Path> journals = Files.list(journalDirectory)) {
+            assertThat(journals)
+                    .as("Journal of the completed upload must be deleted.")
+                    .isEmpty();
+        }
+    }
+
+    @Test
+    @SneakyThrows
+    void loadJournalWithUnexpectedClass() {
+        // given
+        Path journalDirectory = Files.createTempDirectory("test-upload-journals");
+        Path entry = journalDirectory.resolve("unexpected.journal");
+        try (ObjectOutputStream out = new ObjectOutputStream(Files.newOutputStream(entry))) {
+            out.writeObject(new File("unexpected"));
+        }
+        UploadJournal journal = new UploadJournal(journalDirectory, null);
+
+        // when
+        UploadJournal.Checkpoint checkpoint = journal.load("unexpected");
+
+        // then
+        assertThat(checkpoint)
+                .as("Class out of the checkpoint must not be read from the journal.")
+                .isNull();
+        assertThat(entry).doesNotExist();
+    }
+
+    @Test
+    void uploadDirectByteBuffer() {
+        // given
+        byte[] bytes = "Lorem Ipsum is simply dummy text of the printing and typesetting industry."
+                .getBytes(StandardCharsets.UTF_8);
+        ByteBuffer content = ByteBuffer.allocateDirect(bytes.length).put(bytes).flip();
+
+        // when
+        BlobId blobId = BlobId.of(BUCKET_NAME, "test/uploaded-byte-buffer.txt");
+        helper.upload(blobId, content, "text/plain");
+
+        // then
+        Blob actual = helper.getBlob(blobId.getName());
+        assertThat(content.remaining())
+                .as("Position of the buffer must not be changed.")
+                .isEqualTo(bytes.length);
+        assertThat(actual)
+                .isNotNull()
+                .returns((long) bytes.length, Blob::getSize)
+                .returns("text/plain", Blob::getContentType);
+        assertThat(actual.getContent()).isEqualTo(bytes);
+    }
+
+    @Test
+    @SneakyThrows
+    void uploadStream() {
+        // given
+        Blob blob = helper.getLastBlob("user_data/db_list/2021", true);
+        byte[] bytes = blob.getContent();
+
+        // when
+        BlobId blobId = BlobId.of(BUCKET_NAME, "test/uploaded-stream." + helper.toFileExtension(blob.getName()));
+        try (InputStream in = new ByteArrayInputStream(bytes)) {
+            helper.upload(blobId, in, blob.getContentType());
+        }
+
+        // then
+        Blob actual = helper.getBlob(blobId.getName());
+        assertThat(actual)
+                .isNotNull()
+                .returns(blob.getSize(), Blob::getSize)
+                .returns(blob.getContentType(), Blob::getContentType);
+        assertThat(actual.getContent()).isEqualTo(bytes);
+    }
+
+    @Test
+    void uploadWithChecksum() {
+        // given
+        Blob blob = helper.getLastBlob("lifecycle-images/.processed/", true);
+        Path dest = Paths.get("/data", "google-cloud-storage", "downloads");
+        File file = helper.download(blob, dest);
+        HelperOptions options = HelperOptions.builder().md5Enabled(true).build();
+        Helper md5Helper = HelperFactory.create(BUCKET_NAME, options);
+
+        // when
+        String blobName = "test/uploaded-checksum-file." + FilenameUtils.getExtension(file.getName());
+        BlobId blobId = BlobId.of(BUCKET_NAME, blobName);
+        Checksum checksum = md5Helper.upload(blobId, file);
+
+        // then
+        Blob actual = helper.getBlob(blobId.getName());
+        assertThat(checksum)
+                .returns(blob.getCrc32c(), Checksum::getCrc32c)
+                .returns(blob.getMd5(), Checksum::getMd5);
+        assertThat(actual)
+                .isNotNull()
+                .returns(checksum.getCrc32c(), Blob::getCrc32c)
+                .returns(checksum.getMd5(), Blob::getMd5);
+        assertThat(helper.getBlobNames("test/", SearchPolicy.FILES))
+                .as("Staging blob must be deleted after the upload.")
+                .noneMatch(name -> name.startsWith(blobName + ".upload-"));
+    }
+
+    @Test
+    void verifyUploadWithMismatchedChecksum() {
+        // given
+        BlobId blobId = BlobId.of(BUCKET_NAME, "test/uploaded-mismatched-file.txt");
+        helper.upload(blobId, "mismatched".getBytes(StandardCharsets.UTF_8), "text/plain");
+        Checksum expected = new Checksum("AAAAAA==", null);
+
+        // when
+        Throwable thrown = catchThrowable(() -> ChecksumCalculator.verify(GoogleCloudStorageConfig.STORAGE, blobId, expected));
+
+        // then
+        assertThat(thrown).isInstanceOf(ChecksumMismatchException.class);
+        assertThatExceptionOfType(NoSuchBlobException.class)
+                .as("Mismatched blob must be deleted.")
+                .isThrownBy(() -> helper.getBlob(blobId.getName()));
+    }
+
+    @Test
+    void deletePrefix() {
+        // given
+        String prefix = "test/bulk-delete/";
+        byte[] content = "bulk delete".getBytes(StandardCharsets.UTF_8);
+        for (int i = 0; i < 3; i++) {
+            helper.upload(BlobId.of(BUCKET_NAME, prefix + i + ".txt"), content, "text/plain");
+        }
+
+        // when
+        BlobDeletionResult result = helper.deletePrefix(prefix);
+
+        // then
+        assertThat(result)
+                .returns(true, BlobDeletionResult::isSuccessful)
+                .returns(List.of(prefix + "0.txt", prefix + "1.txt", prefix + "2.txt"), BlobDeletionResult::getDeletedNames);
+        assertThat(helper.deleteAll(result.getDeletedNames()).getMissingNames())
+                .as("Deleted blobs must not exist.")
+                .containsExactlyElementsOf(result.getDeletedNames());
+    }
+
+    @Test
+    void deletePrefixWithoutText() {
+        assertThatExceptionOfType(IllegalArgumentException.class)
+                .as("Empty prefix must not delete the whole bucket.")
+                .isThrownBy(() -> helper.deletePrefix(""));
+        assertThatExceptionOfType(IllegalArgumentException.class)
+                .isThrownBy(() -> helper.deletePrefix("  "));
+    }
+
     @Test
     void move() {
         // given
@@ -383,6 +1002,31 @@ class HelperTest {
         System.out.printf("oldBlob: %s, newBlob: %s\n", blob, movedBlob);
     }
 
+    @Test
+    void moveWithProgress() {
+        // given
+        String blobName = "test/move-source.txt";
+        String newBlobName = "test/moved/move-target.txt";
+        byte[] content = "move with progress".getBytes(StandardCharsets.UTF_8);
+        Checksum checksum = helper.upload(BlobId.of(BUCKET_NAME, blobName), content, "text/plain");
+        List<Long> progress = new ArrayList<>();
+
+        // when
+        Blob movedBlob = helper.move(blobName, newBlobName, (bytesCopied, blobSize) -> progress.add(bytesCopied));
+
+        // then
+        assertThat(movedBlob)
+                .returns(newBlobName, Blob::getName)
+                .returns(checksum.getCrc32c(), Blob::getCrc32c);
+        assertThat(progress)
+                .as("The progress must be reported until the whole blob is copied.")
+                .isNotEmpty()
+                .endsWith((long) content.length);
+        assertThatExceptionOfType(NoSuchBlobException.class)
+                .as("The source must be deleted after the move.")
+                .isThrownBy(() -> helper.getBlob(blobName));
+    }
+
     @Test
     void rename() {
         // given
@@ -415,6 +1059,33 @@ class HelperTest {
         System.out.printf("oldBlob: %s, newBlob: %s\n", blob, renamedBlob);
     }
 
+    @Test
+    void renameDirectory() {
+        // given
+        String directoryName = "test/bulk-move/source/";
+        String newDirectoryName = "test/bulk-move/target/";
+        byte[] content = "bulk move".getBytes(StandardCharsets.UTF_8);
+        for (String name : List.of("0.txt", "1.txt", "sub/2.txt")) {
+            helper.upload(BlobId.of(BUCKET_NAME, directoryName + name), content, "text/plain");
+        }
+
+        // when
+        BlobMoveResult result = helper.renameDirectory(directoryName, "target");
+
+        // then
+        assertThat(result)
+                .returns(true, BlobMoveResult::isSuccessful);
+        assertThat(result.getMovedNames())
+                .containsEntry(directoryName + "0.txt", newDirectoryName + "0.txt")
+                .containsEntry(directoryName + "1.txt", newDirectoryName + "1.txt")
+                .containsEntry(directoryName + "sub/2.txt", newDirectoryName + "sub/2.txt");
+        assertThat(helper.deletePrefix(directoryName).getDeletedNames())
+                .as("Sources must be deleted after the move.")
+                .isEmpty();
+        assertThat(helper.deletePrefix(newDirectoryName).getDeletedNames())
+                .containsExactlyInAnyOrderElementsOf(result.getMovedNames().values());
+    }
+
     @Test
     void delete() {
         // given
@@ -439,4 +1110,34 @@ class HelperTest {
         System.out.println(blob);
     }
 
+    /**
+     * Returns storage that runs the action on getting a blob, and finds no blob.
+     */
+    private static Storage newStorage(Consumer<BlobId> onGet) {
+        return (Storage) Proxy.newProxyInstance(Storage.class.getClassLoader(), new Class<?>[]{Storage.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("get") || !(args[0] instanceof BlobId)) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+
+                    onGet.accept((BlobId) args[0]);
+                    return null;
+                });
+    }
+
+    private static Helper newHelper(Storage storage, HelperOptions options) {
+        BufferPool bufferPool = new BufferPool(options.getUploadChunkSize(), options.getBufferPoolSize());
+        return new Helper(BUCKET_NAME, storage, options, bufferPool, null, null, null);
+    }
+
+    @SneakyThrows
+    private static void sleep(long millis) {
+        Thread.sleep(millis);
+    }
+
+    @SneakyThrows
+    private static void await(CountDownLatch latch) {
+        latch.await();
+    }
+
 }